@@ -0,0 +1,175 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * runs the server benchmarks and prints the time and memory each operation takes
+ * the project has no build tool to pull in JMH, so this is a small harness in the same spirit: every benchmark
+ * is warmed up, then measured over several timed iterations, and reported as ns/op, bytes allocated per op
+ * (from the JVM's per thread allocation counter) and the allocation rate that works out to
+ *
+ * compile src and bench together and run this class, for example:
+ * <pre>
+ * javac -d out src/*.java bench/*.java
+ * java -cp out:Resources BenchmarkRunner --filter=Scoring,FanOut
+ * </pre>
+ * pass --filter=A,B to only run benchmarks whose name contains one of the words,
+ * --warmup=N and --iterations=N for how many warmup and measured iterations to run (default 3 and 5),
+ * and --time=MS for how long each iteration runs (default 500)
+ */
+public class BenchmarkRunner {
+
+    /**
+     * how long the first batch has to run before its speed is trusted to size the iterations
+     */
+    private static final long CALIBRATION_NANOS = 10_000_000L;
+
+    /**
+     * counts the bytes each thread allocates
+     */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * every benchmark in the suite
+     * @return the benchmarks, in the order they run
+     */
+    static List<Microbenchmark> benchmarks() {
+        List<Microbenchmark> all = new ArrayList<>();
+        all.addAll(QuestionCodecBench.all());
+        all.addAll(DataSetBench.all());
+        all.addAll(EndGameBench.all());
+        all.addAll(ScoringBench.all());
+        all.addAll(FanOutBench.all());
+        return all;
+    }
+
+    /**
+     * runner for the benchmarks
+     * @param args see the class comment
+     */
+    public static void main(String[] args) {
+        String[] filters = new String[0];
+        int warmup = 3;
+        int iterations = 5;
+        long iterationNanos = 500_000_000L;
+        for (String arg : args) {
+            if (arg.startsWith("--filter=")) {
+                filters = arg.substring("--filter=".length()).split(",");
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else if (arg.startsWith("--time=")) {
+                iterationNanos = Long.parseLong(arg.substring("--time=".length())) * 1_000_000L;
+            } else {
+                System.err.println("Unknown argument " + arg);
+                System.exit(1);
+            }
+        }
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM can not count allocated bytes, B/op will read 0");
+        } else {
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        Blackhole blackhole = new Blackhole();
+        boolean failed = false;
+        System.out.printf("%-26s %16s %14s %12s %14s %10s%n", "benchmark", "param", "ns/op", "+-", "B/op", "MB/s");
+        for (Microbenchmark benchmark : benchmarks()) {
+            if (!matches(benchmark.getName(), filters)) {
+                continue;
+            }
+            try {
+                benchmark.setup();
+                measure(benchmark, blackhole, warmup, iterations, iterationNanos);
+            } catch (Exception e) {
+                System.out.printf("%-26s %16s FAILED: %s%n", benchmark.getName(), benchmark.getParam(), e);
+                failed = true;
+            }
+        }
+        System.out.println("(blackhole " + blackhole.getSink() + ")");
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * checks a benchmark name against the filters
+     * @param name the name
+     * @param filters words to look for, none means every benchmark runs
+     * @return true if the benchmark should run
+     */
+    private static boolean matches(String name, String[] filters) {
+        if (filters.length == 0) {
+            return true;
+        }
+        for (String filter : filters) {
+            if (name.contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * warms up and measures one benchmark, printing its row of results
+     * @param benchmark the benchmark, already set up
+     * @param blackhole takes the results
+     * @param warmup how many iterations to throw away
+     * @param iterations how many iterations to measure
+     * @param iterationNanos how long each iteration should run
+     * @throws Exception if the operation fails
+     */
+    private static void measure(Microbenchmark benchmark, Blackhole blackhole, int warmup, int iterations,
+                                long iterationNanos) throws Exception {
+        long ops = 1;
+        long elapsed;
+        while ((elapsed = runBatch(benchmark, blackhole, ops)) < CALIBRATION_NANOS && ops < (1L << 40)) {
+            ops *= 2;
+        }
+        long opsPerIteration = Math.max(1, (long) ((double) ops * iterationNanos / Math.max(1, elapsed)));
+
+        for (int i = 0; i < warmup; i++) {
+            runBatch(benchmark, blackhole, opsPerIteration);
+        }
+        double[] nanosPerOp = new double[iterations];
+        double bytesPerOp = 0;
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < iterations; i++) {
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+            long time = runBatch(benchmark, blackhole, opsPerIteration);
+            long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+            nanosPerOp[i] = (double) time / opsPerIteration;
+            bytesPerOp += (double) allocated / opsPerIteration / iterations;
+        }
+
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value / iterations;
+        }
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean) / Math.max(1, iterations - 1);
+        }
+        double megabytesPerSecond = mean == 0 ? 0 : bytesPerOp * 1_000.0 / mean;
+        System.out.printf("%-26s %16s %14.1f %12.1f %14.1f %10.1f%n", benchmark.getName(), benchmark.getParam(),
+                mean, Math.sqrt(variance), bytesPerOp, megabytesPerSecond);
+    }
+
+    /**
+     * runs the operation a number of times
+     * @param benchmark the benchmark
+     * @param blackhole takes the results
+     * @param ops how many times to run it
+     * @return how long it took in nanoseconds
+     * @throws Exception if the operation fails
+     */
+    private static long runBatch(Microbenchmark benchmark, Blackhole blackhole, long ops) throws Exception {
+        long start = System.nanoTime();
+        for (long i = 0; i < ops; i++) {
+            benchmark.run(blackhole);
+        }
+        return System.nanoTime() - start;
+    }
+}
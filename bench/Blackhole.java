@@ -0,0 +1,50 @@
+/**
+ * takes the results of benchmark operations so the JIT can not throw the work away as unused
+ */
+public final class Blackhole {
+
+    /**
+     * mixes in every result, read once at the end so the stores can not be dropped
+     */
+    private int sink;
+
+    /**
+     * takes an object result
+     * @param result the result
+     */
+    public void consume(Object result) {
+        sink += System.identityHashCode(result);
+    }
+
+    /**
+     * takes an int result
+     * @param result the result
+     */
+    public void consume(int result) {
+        sink += result;
+    }
+
+    /**
+     * takes a long result
+     * @param result the result
+     */
+    public void consume(long result) {
+        sink += (int) (result ^ (result >>> 32));
+    }
+
+    /**
+     * takes a double result
+     * @param result the result
+     */
+    public void consume(double result) {
+        consume(Double.doubleToRawLongBits(result));
+    }
+
+    /**
+     * getter for everything consumed, mixed together
+     * @return the mix
+     */
+    public int getSink() {
+        return sink;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * drawing questions from a bank, one draw at a time and a whole game's worth from a fresh game
+ */
+public class DataSetBench extends Microbenchmark {
+
+    /**
+     * how many questions the bank holds
+     */
+    private final int bankSize;
+
+    /**
+     * true to measure starting a game and drawing its questions, false to measure a single draw
+     */
+    private final boolean newGame;
+
+    /**
+     * the shared bank
+     */
+    private DataSet bank;
+
+    /**
+     * the game a single draw comes from
+     */
+    private DataSet game;
+
+    /**
+     * constructor for a data set benchmark
+     * @param bankSize how many questions the bank holds
+     * @param newGame true to measure a whole game's worth of draws from a fresh game
+     */
+    DataSetBench(int bankSize, boolean newGame) {
+        super(newGame ? "DataSet.newGame" : "DataSet.getNewRandom", String.valueOf(bankSize));
+        this.bankSize = bankSize;
+        this.newGame = newGame;
+    }
+
+    /**
+     * the benchmarks for a small and a large bank
+     * @return the benchmarks
+     */
+    static List<Microbenchmark> all() {
+        return Arrays.asList(new DataSetBench(14, false), new DataSetBench(500_000, false),
+                new DataSetBench(14, true), new DataSetBench(500_000, true));
+    }
+
+    @Override
+    public void setup() {
+        QuestionData[] questions = new QuestionData[bankSize];
+        for (int i = 0; i < bankSize; i++) {
+            questions[i] = QuestionData.shortAnswer("Question number " + i + "?", "answer " + i, null);
+        }
+        bank = new DataSet(questions);
+        game = new DataSet(bank, 1);
+    }
+
+    @Override
+    public void run(Blackhole blackhole) {
+        if (newGame) {
+            DataSet fresh = new DataSet(bank);
+            for (int i = 0; i < GameRoom.QUESTIONS_PER_GAME; i++) {
+                fresh.getNewRandom();
+                blackhole.consume(fresh.getRandomQuestionData());
+            }
+        } else {
+            game.getNewRandom();
+            blackhole.consume(game.getRandomQuestionData());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * the standings sent at the end of a game, straight from the leaderboard, for rooms of different sizes:
+ * the score board of the top players everyone gets, then each player's own place
+ */
+public class EndGameBench extends Microbenchmark {
+
+    /**
+     * how many players are in the game
+     */
+    private final int players;
+
+    /**
+     * the game's leaderboard
+     */
+    private Leaderboard standings;
+
+    /**
+     * every player in the game
+     */
+    private Player[] seated;
+
+    /**
+     * constructor for an end of game benchmark
+     * @param players how many players are in the game
+     */
+    EndGameBench(int players) {
+        super("GameRoom.scoreBoard", String.valueOf(players));
+        this.players = players;
+    }
+
+    /**
+     * the benchmarks from 10 to 100,000 players
+     * @return the benchmarks
+     */
+    static List<Microbenchmark> all() {
+        return Arrays.asList(new EndGameBench(10), new EndGameBench(1_000), new EndGameBench(100_000));
+    }
+
+    @Override
+    public void setup() {
+        GameServer server = new GameServer(message -> { }, game -> { });
+        Random random = new Random(players);
+        standings = new Leaderboard();
+        seated = new Player[players];
+        for (int i = 0; i < players; i++) {
+            Player player = new Player(server, new MemoryConnection(), i);
+            seated[i] = player;
+            player.setScore(random.nextInt(6) + random.nextDouble());
+            standings.update(player, player.getScore());
+        }
+    }
+
+    @Override
+    public void run(Blackhole blackhole) {
+        blackhole.consume(GameRoom.scoreBoard(standings));
+        for (Player player : seated) {
+            blackhole.consume(standings.rank(player));
+        }
+    }
+}
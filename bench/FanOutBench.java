@@ -0,0 +1,56 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * sending one message to every player in a room, each player writing into its own in memory stream
+ * the players are held in a registry of their own and sent to the same way {@link GameRoom#sendDataToAll(String)} does,
+ * since filling a real room through join would broadcast to everyone already seated
+ */
+public class FanOutBench extends Microbenchmark {
+
+    /**
+     * how many players are in the room
+     */
+    private final int players;
+
+    /**
+     * the players in the room
+     */
+    private PlayerRegistry room;
+
+    /**
+     * constructor for a fan out benchmark
+     * @param players how many players are in the room
+     */
+    FanOutBench(int players) {
+        super("GameRoom.sendDataToAll", String.valueOf(players));
+        this.players = players;
+    }
+
+    /**
+     * the benchmarks from 10 to 10,000 players
+     * @return the benchmarks
+     */
+    static List<Microbenchmark> all() {
+        return Arrays.asList(new FanOutBench(10), new FanOutBench(1_000), new FanOutBench(10_000));
+    }
+
+    @Override
+    public void setup() {
+        GameServer server = new GameServer(message -> { }, game -> { });
+        room = new PlayerRegistry();
+        for (int i = 0; i < players; i++) {
+            room.add(new Player(server, new MemoryConnection(), i));
+        }
+    }
+
+    @Override
+    public void run(Blackhole blackhole) {
+        ByteBuffer frame = Protocol.share(Protocol.encodeText(Protocol.TEXT,
+                "Standings after question 1:\n1. player 1 1.0\n2. player 2 0.5\n3. player 3 0.0\n"));
+        for (Player player : room.snapshot()) {
+            player.sendData(frame);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/**
+ * keeps every latency recorded during a load test so exact percentiles can be printed at the end
+ * any thread may record, a run of a few thousand bots only makes a few hundred thousand samples
+ */
+public class LatencyRecorder {
+
+    /**
+     * the percentiles printed for each recorder
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * what was measured
+     */
+    private final String name;
+
+    /**
+     * the samples in nanoseconds, the first {count} are used
+     */
+    private long[] samples = new long[1024];
+
+    /**
+     * how many samples have been recorded
+     */
+    private int count;
+
+    /**
+     * constructor for a latency recorder
+     * @param name what is measured
+     */
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * records one sample
+     * @param nanos the latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    /**
+     * getter for how many samples have been recorded
+     * @return the number of samples
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * prints the header that lines up with {@link #report()}
+     * @return the header
+     */
+    public static String header() {
+        StringBuilder header = new StringBuilder(String.format("%-20s %8s %9s", "latency (ms)", "count", "min"));
+        for (double percentile : PERCENTILES) {
+            header.append(String.format(" %9s", "p" + (percentile == (int) percentile
+                    ? String.valueOf((int) percentile) : String.valueOf(percentile))));
+        }
+        return header.append(String.format(" %9s", "max")).toString();
+    }
+
+    /**
+     * describes the samples recorded so far
+     * @return one line with the count, min, percentiles and max in milliseconds
+     */
+    public synchronized String report() {
+        StringBuilder line = new StringBuilder(String.format("%-20s %8d", name, count));
+        if (count == 0) {
+            return line.toString();
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        line.append(String.format(" %9.2f", sorted[0] / 1e6));
+        for (double percentile : PERCENTILES) {
+            int index = (int) Math.ceil(percentile / 100 * count) - 1; // nearest rank
+            line.append(String.format(" %9.2f", sorted[Math.max(0, index)] / 1e6));
+        }
+        return line.append(String.format(" %9.2f", sorted[count - 1] / 1e6)).toString();
+    }
+}
@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * one simulated player in a load test, speaking the same protocol as {@link Client} over a real socket
+ * it reads on one of the generator's selector threads and answers each question after a think time
+ * on the generator's scheduler, so thousands of bots only need a handful of threads
+ */
+public class LoadBot {
+
+    /**
+     * the load test this bot belongs to
+     */
+    private final LoadGenerator generator;
+
+    /**
+     * the room this bot plays in
+     */
+    private final LoadRoom room;
+
+    /**
+     * the bot's connection to the server
+     */
+    private final SocketChannel channel;
+
+    /**
+     * the bot's number, used for its player name
+     */
+    private final int id;
+
+    /**
+     * bytes read but not yet handed on as frames
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+
+    /**
+     * which question of the current game comes next, only touched by the selector thread
+     */
+    private int questionIndex;
+
+    /**
+     * when the last answer was sent, read back when its score arrives
+     */
+    private volatile long answerSentAt;
+
+    /**
+     * constructor for a bot
+     * @param generator the load test this bot belongs to
+     * @param room the room the bot plays in
+     * @param channel the bot's connection, already connected and non-blocking
+     * @param id the bot's number
+     */
+    public LoadBot(LoadGenerator generator, LoadRoom room, SocketChannel channel, int id) {
+        this.generator = generator;
+        this.room = room;
+        this.channel = channel;
+        this.id = id;
+    }
+
+    /**
+     * getter for the bot's connection
+     * @return the channel
+     */
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * sends the bot's name and moves it into its room
+     */
+    public void hello() {
+        send(Protocol.encodeText(Protocol.NAME, "bot " + id));
+        send(Protocol.encodeText(Protocol.JOIN, room.getName()));
+    }
+
+    /**
+     * writes a whole frame, bots only send a few small frames so this spins in the rare case the socket is full
+     * @param frame the encoded frame
+     */
+    public synchronized void send(byte[] frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    Thread.yield();
+                }
+            }
+        } catch (IOException e) {
+            generator.fail(this, e);
+        }
+    }
+
+    /**
+     * reads whatever is available and handles every complete frame, see NioTransport for the same loop on the server
+     * @throws IOException if the channel fails, ends or sends a bad frame
+     */
+    public void read() throws IOException {
+        int count = channel.read(readBuffer);
+        if (count < 0) {
+            throw new IOException("server closed the connection");
+        }
+        readBuffer.flip();
+        while (readBuffer.remaining() >= Protocol.HEADER_LENGTH) {
+            int length = readBuffer.getInt(readBuffer.position());
+            Protocol.checkLength(length);
+            if (readBuffer.remaining() < Protocol.HEADER_LENGTH + length) {
+                if (readBuffer.capacity() < Protocol.HEADER_LENGTH + length) { // frame is bigger than the buffer
+                    ByteBuffer bigger = ByteBuffer.allocate(Protocol.HEADER_LENGTH + length);
+                    bigger.put(readBuffer);
+                    readBuffer = bigger;
+                    return;
+                }
+                break;
+            }
+            readBuffer.position(readBuffer.position() + Protocol.HEADER_LENGTH);
+            byte[] data = new byte[length];
+            readBuffer.get(data);
+            onFrame(new Frame(data[0], ByteBuffer.wrap(data, 1, length - 1).slice()), System.nanoTime());
+        }
+        readBuffer.compact();
+    }
+
+    /**
+     * handles one frame from the server
+     * @param received the frame
+     * @param receivedAt when it was read
+     * @throws IOException if the frame is malformed
+     */
+    private void onFrame(Frame received, long receivedAt) throws IOException {
+        switch (received.getType()) {
+            case Protocol.TEXT:
+                String text = Protocol.decodeText(received);
+                if (text.startsWith("Joined room ")) {
+                    room.onJoined();
+                } else if (text.startsWith("Game Started")) {
+                    questionIndex = 0;
+                } else if (text.startsWith("The top players")) {
+                    room.onScoreBoard(receivedAt);
+                }
+                break;
+            case Protocol.QUESTION:
+                int question = questionIndex++;
+                room.onQuestion(question, receivedAt);
+                QuestionData data = Protocol.decodeQuestion(received);
+                int roundId = Protocol.decodeRoundId(received);
+                long think = generator.getThinkTime().nextMillis(ThreadLocalRandom.current());
+                generator.getScheduler().schedule(() -> answer(question, roundId, data), think, TimeUnit.MILLISECONDS);
+                break;
+            case Protocol.SCORE:
+                generator.getAnswerToAck().record(receivedAt - answerSentAt);
+                break;
+            default: // media is never asked for and sessions are never resumed, so nothing else is needed
+                break;
+        }
+    }
+
+    /**
+     * answers a question, usually wrong, the server scores it the same either way
+     * @param question which question of the game this is
+     * @param roundId the round answering it, sent back with the answer
+     * @param data the question
+     */
+    private void answer(int question, int roundId, QuestionData data) {
+        String[] response;
+        switch (data.getType()) {
+            case MULTIPLE_CHOICE:
+                response = new String[]{data.getChoice(ThreadLocalRandom.current().nextInt(data.getChoiceCount()))};
+                break;
+            case FILL_BLANK:
+                response = new String[data.getBlanksNum()];
+                for (int i = 0; i < response.length; i++) {
+                    response[i] = "blank " + i;
+                }
+                break;
+            default:
+                response = new String[]{"bot " + id + " answer"};
+                break;
+        }
+        byte[] frame = Protocol.encodeAnswer(roundId, response);
+        answerSentAt = System.nanoTime();
+        room.onAnswerSent(question, answerSentAt); // before the send, the next question can come back right after it
+        send(frame);
+    }
+}
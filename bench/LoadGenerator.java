@@ -0,0 +1,411 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * a headless load test, connects thousands of {@link LoadBot}s to a server on this machine and plays real games
+ * bots are split into named rooms, each room plays its games and the run ends once every room is done
+ * at the end it prints how fast bots connected and percentiles for:
+ * <ul>
+ *     <li>connect, how long each socket took to connect</li>
+ *     <li>question fan out, from the message that let the server move on (the start, or the room's slowest
+ *     answer) to each bot reading the next question</li>
+ *     <li>answer to ack, from a bot sending an answer to it reading its score</li>
+ *     <li>round duration, from a room's first bot seeing one question to seeing the next, think time included</li>
+ * </ul>
+ *
+ * start a server, then compile src and bench together and run this class, for example:
+ * <pre>
+ * java -cp out:Resources ServerRunner --headless --transport=nio
+ * java -cp out LoadGenerator --bots=2000 --room-size=20 --think=exp:200
+ * </pre>
+ * pass --bots=N for how many bots connect (default 100), --room-size=N for how many share a room (default 10),
+ * --games=N for how many games each room plays (default 1), --think=DIST for how long bots wait before answering
+ * (default uniform:50:500, see {@link ThinkTime}), --io-threads=N for how many threads read for the bots (default 2),
+ * --port=N if the server is not on the usual port and --timeout=SECONDS to give up on rooms that never finish
+ * (default 300)
+ * the exit code is 1 if any bot failed or any room did not finish
+ */
+public class LoadGenerator {
+
+    /**
+     * how many bot errors are printed before the rest are only counted
+     */
+    private static final int MAX_ERRORS_SHOWN = 10;
+
+    /**
+     * how long bots wait before answering
+     */
+    private final ThinkTime thinkTime;
+
+    /**
+     * runs each bot's answer once its think time is up
+     */
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "load-answers");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * the threads reading for the bots
+     */
+    private final LoadLoop[] loops;
+
+    /**
+     * how long each connect took
+     */
+    private final LatencyRecorder connect = new LatencyRecorder("connect");
+
+    /**
+     * how long questions took to reach each bot after the server could send them
+     */
+    private final LatencyRecorder fanOut = new LatencyRecorder("question fan out");
+
+    /**
+     * how long answers took to be scored
+     */
+    private final LatencyRecorder answerToAck = new LatencyRecorder("answer to ack");
+
+    /**
+     * how long each round took
+     */
+    private final LatencyRecorder roundDuration = new LatencyRecorder("round duration");
+
+    /**
+     * how many bots failed, to connect or later on
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * how many games every bot in a room finished
+     */
+    private final AtomicInteger gamesPlayed = new AtomicInteger();
+
+    /**
+     * counts down as rooms play their last game
+     */
+    private CountDownLatch roomsLeft;
+
+    /**
+     * set once the run is over, so closing the bots is not counted as failures
+     */
+    private volatile boolean stopping;
+
+    /**
+     * constructor for a load test
+     * @param thinkTime how long bots wait before answering
+     * @param ioThreads how many threads read for the bots
+     * @throws IOException if a selector can not be opened
+     */
+    public LoadGenerator(ThinkTime thinkTime, int ioThreads) throws IOException {
+        this.thinkTime = thinkTime;
+        this.loops = new LoadLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new LoadLoop(this);
+        }
+    }
+
+    /**
+     * runner for the load test
+     * @param args see the class comment
+     */
+    public static void main(String[] args) {
+        int bots = 100;
+        int roomSize = 10;
+        int games = 1;
+        ThinkTime thinkTime = ThinkTime.parse("uniform:50:500");
+        int ioThreads = 2;
+        int port = GameServer.PORT;
+        long timeoutSeconds = 300;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--bots=")) {
+                    bots = Integer.parseInt(arg.substring("--bots=".length()));
+                } else if (arg.startsWith("--room-size=")) {
+                    roomSize = Integer.parseInt(arg.substring("--room-size=".length()));
+                } else if (arg.startsWith("--games=")) {
+                    games = Integer.parseInt(arg.substring("--games=".length()));
+                } else if (arg.startsWith("--think=")) {
+                    thinkTime = ThinkTime.parse(arg.substring("--think=".length()));
+                } else if (arg.startsWith("--io-threads=")) {
+                    ioThreads = Integer.parseInt(arg.substring("--io-threads=".length()));
+                } else if (arg.startsWith("--port=")) {
+                    port = Integer.parseInt(arg.substring("--port=".length()));
+                } else if (arg.startsWith("--timeout=")) {
+                    timeoutSeconds = Long.parseLong(arg.substring("--timeout=".length()));
+                } else {
+                    System.err.println("Unknown argument " + arg);
+                    System.exit(1);
+                }
+            }
+        } catch (IllegalArgumentException e) { // also catches NumberFormatException
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        if (bots < 1 || roomSize < 1 || games < 1 || ioThreads < 1) {
+            System.err.println("--bots, --room-size, --games and --io-threads must be at least 1");
+            System.exit(1);
+        }
+
+        try {
+            LoadGenerator generator = new LoadGenerator(thinkTime, ioThreads);
+            boolean passed = generator.run(bots, roomSize, games, port, timeoutSeconds);
+            System.exit(passed ? 0 : 1);
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Load test failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * connects the bots, plays the games and prints the results
+     * @param bots how many bots connect
+     * @param roomSize how many bots share a room
+     * @param games how many games each room plays
+     * @param port the server's port on this machine
+     * @param timeoutSeconds how long to wait for the rooms to finish
+     * @return true if every bot connected and every room finished
+     * @throws IOException if a selector fails
+     * @throws InterruptedException if interrupted while waiting for the rooms
+     */
+    public boolean run(int bots, int roomSize, int games, int port, long timeoutSeconds)
+            throws IOException, InterruptedException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        int roomCount = (bots + roomSize - 1) / roomSize;
+        LoadRoom[] rooms = new LoadRoom[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            rooms[i] = new LoadRoom("load " + i, this, games, Math.min(roomSize, bots - i * roomSize));
+        }
+        roomsLeft = new CountDownLatch(roomCount);
+        for (int i = 0; i < loops.length; i++) {
+            Thread thread = new Thread(loops[i], "load-io-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        System.out.println("Connecting " + bots + " bots to " + address + " in " + roomCount + " room(s), think time "
+                + thinkTime);
+
+        List<LoadBot> connected = new ArrayList<>(bots);
+        long connectStart = System.nanoTime();
+        for (int i = 0; i < bots; i++) {
+            LoadRoom room = rooms[i / roomSize];
+            long start = System.nanoTime();
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open(address);
+                connect.record(System.nanoTime() - start);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+            } catch (IOException e) {
+                failures.incrementAndGet();
+                report("bot " + i + " could not connect: " + e.getMessage());
+                if (channel != null) {
+                    channel.close();
+                }
+                continue;
+            }
+            LoadBot bot = new LoadBot(this, room, channel, i);
+            room.add(bot);
+            connected.add(bot);
+            loops[i % loops.length].add(bot);
+            bot.hello();
+        }
+        long connectNanos = System.nanoTime() - connectStart;
+        System.out.printf("Connected %d of %d bots in %d ms, %.1f connections/s%n", connected.size(), bots,
+                connectNanos / 1_000_000, connected.size() * 1e9 / Math.max(1, connectNanos));
+
+        boolean finished = roomsLeft.await(timeoutSeconds, TimeUnit.SECONDS); // early rooms are already playing
+        long runNanos = System.nanoTime() - connectStart;
+        stopping = true;
+        for (LoadBot bot : connected) {
+            try {
+                bot.getChannel().close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+        scheduler.shutdownNow();
+
+        System.out.printf("Played %d game(s) in %d room(s), %d ms after the first connect%s%n", gamesPlayed.get(),
+                roomCount, runNanos / 1_000_000, finished ? "" : ", " + roomsLeft.getCount() + " room(s) timed out");
+        System.out.println(failures.get() + " bot(s) failed");
+        System.out.println(LatencyRecorder.header());
+        System.out.println(connect.report());
+        System.out.println(fanOut.report());
+        System.out.println(answerToAck.report());
+        System.out.println(roundDuration.report());
+        return finished && failures.get() == 0;
+    }
+
+    /**
+     * counts a bot that has failed and closes it, its room will not finish
+     * @param bot the bot
+     * @param e what went wrong
+     */
+    public void fail(LoadBot bot, IOException e) {
+        if (stopping || !bot.getChannel().isOpen()) {
+            return;
+        }
+        failures.incrementAndGet();
+        report("bot failed: " + e.getMessage());
+        try {
+            bot.getChannel().close();
+        } catch (IOException closing) {
+            // already failed
+        }
+    }
+
+    /**
+     * prints an error, only the first few so a server going away does not print thousands of lines
+     * @param message the error
+     */
+    private void report(String message) {
+        if (failures.get() <= MAX_ERRORS_SHOWN) {
+            System.err.println(message);
+        }
+    }
+
+    /**
+     * called when every bot in a room has seen a game's score board
+     */
+    public void gameFinished() {
+        gamesPlayed.incrementAndGet();
+    }
+
+    /**
+     * called when a room has played all its games
+     * @param room the room
+     */
+    public void roomFinished(LoadRoom room) {
+        roomsLeft.countDown();
+    }
+
+    /**
+     * getter for how long bots wait before answering
+     * @return the think time
+     */
+    public ThinkTime getThinkTime() {
+        return thinkTime;
+    }
+
+    /**
+     * getter for the scheduler that sends answers
+     * @return the scheduler
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * getter for the question fan out latencies
+     * @return the recorder
+     */
+    public LatencyRecorder getFanOut() {
+        return fanOut;
+    }
+
+    /**
+     * getter for the answer to ack latencies
+     * @return the recorder
+     */
+    public LatencyRecorder getAnswerToAck() {
+        return answerToAck;
+    }
+
+    /**
+     * getter for the round durations
+     * @return the recorder
+     */
+    public LatencyRecorder getRoundDuration() {
+        return roundDuration;
+    }
+
+    /**
+     * one thread reading for some of the bots, the client side of NioTransport's I/O loops
+     */
+    private static class LoadLoop implements Runnable {
+
+        /**
+         * the load test the bots belong to
+         */
+        private final LoadGenerator generator;
+
+        /**
+         * the selector for every bot on this thread
+         */
+        private final Selector selector;
+
+        /**
+         * bots connected but not registered yet
+         */
+        private final ConcurrentLinkedQueue<LoadBot> newBots = new ConcurrentLinkedQueue<>();
+
+        /**
+         * constructor for a read loop
+         * @param generator the load test the bots belong to
+         * @throws IOException if the selector can not be opened
+         */
+        LoadLoop(LoadGenerator generator) throws IOException {
+            this.generator = generator;
+            this.selector = Selector.open();
+        }
+
+        /**
+         * hands a newly connected bot to this loop
+         * @param bot the bot, its channel already non-blocking
+         */
+        void add(LoadBot bot) {
+            newBots.add(bot);
+            selector.wakeup();
+        }
+
+        /**
+         * selects and reads for ready bots until the program ends
+         */
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    LoadBot bot;
+                    while ((bot = newBots.poll()) != null) {
+                        try {
+                            bot.getChannel().register(selector, SelectionKey.OP_READ, bot);
+                        } catch (IOException e) {
+                            generator.fail(bot, e);
+                        }
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        LoadBot ready = (LoadBot) key.attachment();
+                        try {
+                            ready.read();
+                        } catch (IOException | CancelledKeyException e) {
+                            key.cancel();
+                            generator.fail(ready, e instanceof IOException ? (IOException) e : new IOException(e));
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Load I/O loop error: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * the bots sharing one named room in a load test, and the timing of that room's rounds
+ * the first bot starts each game once every bot has joined or seen the last score board,
+ * and the times each round was set off and first seen give the fan out and round duration
+ */
+public class LoadRoom {
+
+    /**
+     * marks a time that has not happened yet this game
+     */
+    private static final long UNSET = Long.MIN_VALUE;
+
+    /**
+     * the name of the room on the server
+     */
+    private final String name;
+
+    /**
+     * the load test this room belongs to
+     */
+    private final LoadGenerator generator;
+
+    /**
+     * how many games to play
+     */
+    private final int games;
+
+    /**
+     * how many bots play in this room
+     */
+    private final int size;
+
+    /**
+     * the first bot added, it starts the games
+     */
+    private volatile LoadBot starter;
+
+    /**
+     * how many games have been started
+     */
+    private int gamesStarted;
+
+    /**
+     * how many bots the server has put in the room
+     */
+    private final AtomicInteger joined = new AtomicInteger();
+
+    /**
+     * how many bots have seen the score board of the current game
+     */
+    private final AtomicInteger finished = new AtomicInteger();
+
+    /**
+     * for each question, when the last thing the server waited on before sending it was sent,
+     * the start of the game for the first question and the slowest answer to the one before for the rest
+     */
+    private final AtomicLongArray triggers = new AtomicLongArray(GameRoom.QUESTIONS_PER_GAME + 1);
+
+    /**
+     * for each question, and the score board after the last one, when the first bot received it
+     */
+    private final AtomicLongArray firstReceipts = new AtomicLongArray(GameRoom.QUESTIONS_PER_GAME + 1);
+
+    /**
+     * constructor for a room
+     * @param name the name of the room on the server
+     * @param generator the load test this room belongs to
+     * @param games how many games to play
+     * @param size how many bots play in the room
+     */
+    public LoadRoom(String name, LoadGenerator generator, int games, int size) {
+        this.name = name;
+        this.generator = generator;
+        this.games = games;
+        this.size = size;
+    }
+
+    /**
+     * getter for the name of the room
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * adds a bot as it connects, the first one added starts the games
+     * @param bot the bot
+     */
+    public void add(LoadBot bot) {
+        if (starter == null) {
+            starter = bot;
+        }
+    }
+
+    /**
+     * called when the server confirms a bot joined, starts the first game once they all have
+     */
+    public void onJoined() {
+        if (joined.incrementAndGet() == size) {
+            startGame();
+        }
+    }
+
+    /**
+     * called just before a bot sends an answer
+     * @param question which question of the game it answers
+     * @param sentAt when it is sent
+     */
+    public void onAnswerSent(int question, long sentAt) {
+        triggers.accumulateAndGet(question + 1, sentAt, Math::max);
+    }
+
+    /**
+     * called when a bot receives a question
+     * @param question which question of the game it is
+     * @param receivedAt when it was read
+     */
+    public void onQuestion(int question, long receivedAt) {
+        if (question >= GameRoom.QUESTIONS_PER_GAME) {
+            return; // the server asked more questions than expected, nothing here lines up any more
+        }
+        long trigger = triggers.get(question);
+        if (trigger != UNSET) {
+            generator.getFanOut().record(receivedAt - trigger);
+        }
+        roundBoundary(question, receivedAt);
+    }
+
+    /**
+     * called when a bot receives the score board, starts the next game once every bot has it
+     * @param receivedAt when it was read
+     */
+    public void onScoreBoard(long receivedAt) {
+        roundBoundary(GameRoom.QUESTIONS_PER_GAME, receivedAt);
+        if (finished.incrementAndGet() == size) {
+            generator.gameFinished();
+            if (!startGame()) {
+                generator.roomFinished(this);
+            }
+        }
+    }
+
+    /**
+     * notes when a round ended and the next question or the score board was first seen
+     * @param index the question, or {@link GameRoom#QUESTIONS_PER_GAME} for the score board
+     * @param receivedAt when it was read
+     */
+    private void roundBoundary(int index, long receivedAt) {
+        if (firstReceipts.compareAndSet(index, UNSET, receivedAt) && index > 0) {
+            long roundStart = firstReceipts.get(index - 1);
+            if (roundStart != UNSET) {
+                generator.getRoundDuration().record(receivedAt - roundStart);
+            }
+        }
+    }
+
+    /**
+     * starts the next game if there are any left to play
+     * @return true if a game was started
+     */
+    private synchronized boolean startGame() {
+        if (gamesStarted == games) {
+            return false;
+        }
+        gamesStarted++;
+        finished.set(0);
+        for (int i = 0; i < triggers.length(); i++) {
+            triggers.set(i, UNSET);
+            firstReceipts.set(i, UNSET);
+        }
+        triggers.set(0, System.nanoTime());
+        starter.send(Protocol.encodeEmpty(Protocol.START));
+        return true;
+    }
+}
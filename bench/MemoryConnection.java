@@ -0,0 +1,48 @@
+import java.nio.ByteBuffer;
+
+/**
+ * a connection that writes every frame straight into a buffer in memory, so benchmarks measure the server
+ * and the cost of copying the bytes out, without sockets or threads
+ * the buffer wraps around when it fills, nothing ever reads it
+ */
+public class MemoryConnection implements Connection {
+
+    /**
+     * where frames are written
+     */
+    private final byte[] stream = new byte[4096];
+
+    /**
+     * where the next frame starts in {stream}
+     */
+    private int position;
+
+    /**
+     * never used, only here for the player's queue numbers
+     */
+    private final OutboundQueue queue = new OutboundQueue(1, OverflowPolicy.DROP);
+
+    @Override
+    public void send(ByteBuffer frame) {
+        ByteBuffer view = frame.duplicate();
+        int length = Math.min(view.remaining(), stream.length);
+        if (position + length > stream.length) {
+            position = 0;
+        }
+        view.get(stream, position, length);
+        position += length;
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return queue;
+    }
+
+    @Override
+    public void setPlayer(Player player) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * one operation to measure, run over and over by {@link BenchmarkRunner}
+ * anything an operation needs is made in {@link #setup()}, which is not measured
+ */
+public abstract class Microbenchmark {
+
+    /**
+     * the name of the benchmark, grouped by the code it measures
+     */
+    private final String name;
+
+    /**
+     * the parameter the benchmark was made with, such as a player count, empty if there is none
+     */
+    private final String param;
+
+    /**
+     * constructor for a benchmark
+     * @param name the name of the benchmark
+     * @param param the parameter it was made with, empty if there is none
+     */
+    protected Microbenchmark(String name, String param) {
+        this.name = name;
+        this.param = param;
+    }
+
+    /**
+     * getter for the name of the benchmark
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * getter for the parameter the benchmark was made with
+     * @return the parameter, empty if there is none
+     */
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * makes whatever the operation needs, called once before any measuring
+     * @throws Exception if setup fails, the benchmark is then skipped
+     */
+    public void setup() throws Exception {
+    }
+
+    /**
+     * runs the operation once
+     * @param blackhole takes the result of the operation
+     * @throws Exception if the operation fails, the benchmark is then stopped
+     */
+    public abstract void run(Blackhole blackhole) throws Exception;
+}
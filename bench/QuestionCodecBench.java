@@ -0,0 +1,77 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * encoding each type of question the way {@link GameRoom} sends it, and decoding it the way the client reads it
+ */
+public class QuestionCodecBench extends Microbenchmark {
+
+    /**
+     * whether this benchmark encodes or decodes
+     */
+    private final boolean encode;
+
+    /**
+     * the question
+     */
+    private final QuestionData question;
+
+    /**
+     * the encoded question, read back over and over by the decode benchmark
+     */
+    private ByteArrayInputStream bytes;
+
+    /**
+     * reads frames from {bytes}
+     */
+    private DataInputStream in;
+
+    /**
+     * constructor for a question codec benchmark
+     * @param encode true to measure encoding, false for decoding
+     * @param question the question
+     */
+    QuestionCodecBench(boolean encode, QuestionData question) {
+        super(encode ? "QuestionCodec.encode" : "QuestionCodec.decode", question.getType().name().toLowerCase());
+        this.encode = encode;
+        this.question = question;
+    }
+
+    /**
+     * the benchmarks for every type of question, both ways
+     * @return the benchmarks
+     */
+    static List<Microbenchmark> all() {
+        QuestionData[] questions = {
+                QuestionData.shortAnswer("Who was the first president of the U.S.?", "George Washington|Washington", null),
+                QuestionData.multipleChoice("What is cynophobia?", new String[]{"Fear of bananas", "Fear of the color cyan",
+                        "Fear of dogs", "Fear of yogurt"}, "Fear of dogs", null),
+                QuestionData.fillBlank("Amelia _____ was first first solo woman to fly solo across the _____ Ocean.",
+                        new String[]{"Earhart", "Atlantic"}, "amelia.jpeg"),
+        };
+        Microbenchmark[] benchmarks = new Microbenchmark[questions.length * 2];
+        for (int i = 0; i < questions.length; i++) {
+            benchmarks[i * 2] = new QuestionCodecBench(true, questions[i]);
+            benchmarks[i * 2 + 1] = new QuestionCodecBench(false, questions[i]);
+        }
+        return Arrays.asList(benchmarks);
+    }
+
+    @Override
+    public void setup() {
+        bytes = new ByteArrayInputStream(Protocol.encodeQuestion(1, question));
+        in = new DataInputStream(bytes);
+    }
+
+    @Override
+    public void run(Blackhole blackhole) throws Exception {
+        if (encode) {
+            blackhole.consume(Protocol.share(Protocol.encodeQuestion(1, question)));
+        } else {
+            bytes.reset();
+            blackhole.consume(Protocol.decodeQuestion(Protocol.readFrame(in)));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * scoring typed answers to short answer and fill in the blank questions, right, slightly wrong and wrong
+ */
+public class ScoringBench extends Microbenchmark {
+
+    /**
+     * the question
+     */
+    private final QuestionData question;
+
+    /**
+     * the answer scored each time
+     */
+    private final String[] response;
+
+    /**
+     * the compiled scorer, shared like {@link DataSet} shares it
+     */
+    private AnswerScorer scorer;
+
+    /**
+     * constructor for a scoring benchmark
+     * @param name the name, saying which kind of question
+     * @param param which answer is scored
+     * @param question the question
+     * @param response the answer scored each time
+     */
+    ScoringBench(String name, String param, QuestionData question, String... response) {
+        super(name, param);
+        this.question = question;
+        this.response = response;
+    }
+
+    /**
+     * the benchmarks for both kinds of typed question
+     * @return the benchmarks
+     */
+    static List<Microbenchmark> all() {
+        QuestionData shortAnswer = QuestionData.shortAnswer("Who was the first president of the U.S.?",
+                "George Washington|Washington", null);
+        QuestionData fillBlank = QuestionData.fillBlank(
+                "Amelia _____ was first first solo woman to fly solo across the _____ Ocean.",
+                new String[]{"Earhart", "Atlantic"}, null);
+        return Arrays.asList(
+                new ScoringBench("Scoring.shortAnswer", "exact", shortAnswer, "George Washington"),
+                new ScoringBench("Scoring.shortAnswer", "typo", shortAnswer, "george washingten"),
+                new ScoringBench("Scoring.shortAnswer", "wrong", shortAnswer, "Abraham Lincoln"),
+                new ScoringBench("Scoring.fillBlank", "exact", fillBlank, "Earhart", "Atlantic"),
+                new ScoringBench("Scoring.fillBlank", "typo", fillBlank, "earheart", "atlantik"),
+                new ScoringBench("Scoring.fillBlank", "wrong", fillBlank, "Lindbergh", "Pacific"));
+    }
+
+    @Override
+    public void setup() {
+        scorer = AnswerScorer.compile(question);
+    }
+
+    @Override
+    public void run(Blackhole blackhole) {
+        blackhole.consume(scorer.score(response));
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.Random;
+
+/**
+ * how long a bot waits before answering a question, drawn from a distribution picked on the command line
+ * <ul>
+ *     <li>fixed:MS always waits MS milliseconds</li>
+ *     <li>uniform:MIN:MAX waits anywhere from MIN to MAX milliseconds</li>
+ *     <li>exp:MEAN waits an exponentially distributed time averaging MEAN milliseconds, a few players are very slow</li>
+ *     <li>normal:MEAN:SD waits a normally distributed time, never less than 0</li>
+ * </ul>
+ */
+public final class ThinkTime {
+
+    /**
+     * the name of the distribution
+     */
+    private final String kind;
+
+    /**
+     * the first parameter of the distribution in milliseconds
+     */
+    private final double first;
+
+    /**
+     * the second parameter of the distribution in milliseconds, 0 if it only has one
+     */
+    private final double second;
+
+    /**
+     * constructor for a think time
+     * @param kind the name of the distribution
+     * @param first its first parameter
+     * @param second its second parameter
+     */
+    private ThinkTime(String kind, double first, double second) {
+        this.kind = kind;
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * reads a think time from the command line
+     * @param text the distribution, see the class comment
+     * @return the think time
+     * @throws IllegalArgumentException if the distribution is unknown or its parameters are wrong
+     */
+    public static ThinkTime parse(String text) {
+        String[] parts = text.split(":");
+        try {
+            switch (parts[0]) {
+                case "fixed":
+                case "exp":
+                    if (parts.length == 2) {
+                        return checked(new ThinkTime(parts[0], Double.parseDouble(parts[1]), 0));
+                    }
+                    break;
+                case "uniform":
+                case "normal":
+                    if (parts.length == 3) {
+                        return checked(new ThinkTime(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2])));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown think time " + parts[0]
+                            + ", use fixed:MS, uniform:MIN:MAX, exp:MEAN or normal:MEAN:SD");
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad think time " + text);
+        }
+        throw new IllegalArgumentException("Wrong number of parameters in think time " + text);
+    }
+
+    /**
+     * makes sure a think time can not wait a negative or backwards time
+     * @param think the think time
+     * @return the think time
+     * @throws IllegalArgumentException if a parameter is negative or the range is backwards
+     */
+    private static ThinkTime checked(ThinkTime think) {
+        if (think.first < 0 || think.second < 0 || (think.kind.equals("uniform") && think.second < think.first)) {
+            throw new IllegalArgumentException("Bad think time " + think);
+        }
+        return think;
+    }
+
+    /**
+     * draws the next wait
+     * @param random where the randomness comes from
+     * @return how long to wait in milliseconds
+     */
+    public long nextMillis(Random random) {
+        double millis;
+        switch (kind) {
+            case "uniform":
+                millis = first + random.nextDouble() * (second - first);
+                break;
+            case "exp":
+                millis = -first * Math.log(1 - random.nextDouble());
+                break;
+            case "normal":
+                millis = first + random.nextGaussian() * second;
+                break;
+            default:
+                millis = first;
+                break;
+        }
+        return Math.max(0, Math.round(millis));
+    }
+
+    @Override
+    public String toString() {
+        return kind + ":" + first + (kind.equals("uniform") || kind.equals("normal") ? ":" + second : "");
+    }
+}
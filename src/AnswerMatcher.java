@@ -0,0 +1,231 @@
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * checks typed answers against one answer key, forgiving case, spacing, punctuation and small typos
+ * the key may list accepted aliases separated by {@code |}, for example {@code George Washington|Washington}
+ * keys are normalized once when the matcher is made: Unicode NFKC, case folded, and only letters and digits kept
+ * answers are normalized the same way, then compared with a Damerau-Levenshtein distance that gives up as soon as
+ * the allowed number of edits is passed, working in per thread scratch buffers so matching allocates nothing for ASCII
+ */
+public final class AnswerMatcher {
+
+    /**
+     * separates aliases in an answer key
+     */
+    public static final String ALIAS_SEPARATOR = "|";
+
+    /**
+     * scratch space for one thread
+     */
+    private static final class Scratch {
+
+        /**
+         * the normalized answer
+         */
+        char[] text = new char[64];
+
+        /**
+         * the distance row two back
+         */
+        int[] before = new int[65];
+
+        /**
+         * the last distance row
+         */
+        int[] previous = new int[65];
+
+        /**
+         * the distance row being filled in
+         */
+        int[] current = new int[65];
+
+        /**
+         * makes sure the buffers hold an answer of a length
+         * @param length the length
+         */
+        void ensure(int length) {
+            if (text.length < length) {
+                text = new char[length];
+                before = new int[length + 1];
+                previous = new int[length + 1];
+                current = new int[length + 1];
+            }
+        }
+    }
+
+    /**
+     * each thread's scratch space
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * the normalized form of each alias
+     */
+    private final char[][] keys;
+
+    /**
+     * how many edits each alias allows
+     */
+    private final int[] maxEdits;
+
+    /**
+     * constructor for a matcher
+     * @param answerKey the correct answer, with any aliases separated by {@code |}
+     */
+    public AnswerMatcher(String answerKey) {
+        String[] aliases = answerKey.split("\\|");
+        keys = new char[aliases.length][];
+        maxEdits = new int[aliases.length];
+        for (int i = 0; i < aliases.length; i++) {
+            keys[i] = normalize(aliases[i]).toCharArray();
+            maxEdits[i] = editsAllowed(keys[i].length);
+        }
+    }
+
+    /**
+     * checks an answer against the key
+     * @param answer the typed answer, may be null
+     * @return true if it is close enough to any alias
+     */
+    public boolean matches(String answer) {
+        if (answer == null) {
+            return false;
+        }
+        Scratch scratch = SCRATCH.get();
+        int length = normalizeInto(answer, scratch);
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].length > 0 && withinDistance(scratch, length, keys[i], maxEdits[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * normalizes text the way keys and answers are compared: NFKC, case folded, letters and digits only
+     * @param text the text
+     * @return the normalized text
+     */
+    public static String normalize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        StringBuilder kept = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); ) {
+            int codePoint = folded.codePointAt(i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                kept.appendCodePoint(codePoint);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return kept.toString();
+    }
+
+    /**
+     * how many typos an answer key of a length forgives, short keys must be exact so "cat" never matches "car"
+     * @param length the normalized key length
+     * @return the edits allowed
+     */
+    static int editsAllowed(int length) {
+        if (length <= 4) {
+            return 0;
+        }
+        return length <= 8 ? 1 : 2;
+    }
+
+    /**
+     * normalizes an answer into the scratch buffer, without allocating when it is plain ASCII
+     * @param answer the answer
+     * @param scratch the scratch space
+     * @return the normalized length
+     */
+    private static int normalizeInto(String answer, Scratch scratch) {
+        int length = answer.length();
+        for (int i = 0; i < length; i++) {
+            if (answer.charAt(i) >= 0x80) { // anything else needs the full Unicode path
+                String normalized = normalize(answer);
+                scratch.ensure(normalized.length());
+                normalized.getChars(0, normalized.length(), scratch.text, 0);
+                return normalized.length();
+            }
+        }
+        scratch.ensure(length);
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            char c = answer.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                scratch.text[kept++] = (char) (c + ('a' - 'A'));
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                scratch.text[kept++] = c;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * checks whether the answer in scratch is within some edits of a key, counting swapped neighbours as one edit
+     * only the band of cells that could stay under the limit is filled in, and it stops once a whole row is over it
+     * @param scratch the scratch space holding the answer
+     * @param length the answer length
+     * @param key the key
+     * @param limit the most edits allowed
+     * @return true if the distance is at most limit
+     */
+    private static boolean withinDistance(Scratch scratch, int length, char[] key, int limit) {
+        char[] text = scratch.text;
+        if (Math.abs(length - key.length) > limit) {
+            return false;
+        }
+        if (limit == 0) {
+            if (length != key.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (text[i] != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int over = limit + 1;
+        int[] before = scratch.before;
+        int[] previous = scratch.previous;
+        int[] current = scratch.current;
+        for (int j = 0; j <= length; j++) {
+            previous[j] = j <= limit ? j : over;
+        }
+        for (int i = 1; i <= key.length; i++) {
+            int from = Math.max(1, i - limit);
+            int to = Math.min(length, i + limit);
+            current[0] = i <= limit ? i : over;
+            if (from > 1) {
+                current[from - 1] = over;
+            }
+            int rowMin = current[0];
+            char k = key[i - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = text[j - 1] == k ? 0 : 1;
+                int best = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && k == text[j - 2] && key[i - 2] == text[j - 1]) {
+                    best = Math.min(best, before[j - 2] + 1); // neighbouring letters swapped
+                }
+                current[j] = Math.min(best, over);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < length) {
+                current[to + 1] = over;
+            }
+            if (rowMin > limit) {
+                return false; // every path is already over the limit
+            }
+            int[] spare = before;
+            before = previous;
+            previous = current;
+            current = spare;
+        }
+        return previous[length] <= limit;
+    }
+}
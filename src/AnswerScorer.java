@@ -0,0 +1,125 @@
+/**
+ * scores a player's raw answer to one question on the server, so clients can not choose their own points
+ * made once per question by {@link #compile(QuestionData)} with everything about the correct answer worked out up front,
+ * after that scoring keeps no state of its own, so any number of threads can share one scorer
+ * typed answers go through an {@link AnswerMatcher}, so aliases and small typos are accepted
+ */
+public abstract class AnswerScorer {
+
+    /**
+     * scores an answer
+     * @param response the raw answer, one string for short answer and multiple choice, one per blank for fill in the blank
+     * @return the points, from 0 to 1
+     */
+    public abstract double score(String[] response);
+
+    /**
+     * builds the scorer for a question
+     * @param question the question, with its correct answers
+     * @return the scorer
+     */
+    public static AnswerScorer compile(QuestionData question) {
+        if (question.getAnswerCount() == 0) {
+            throw new IllegalArgumentException("question has no correct answer: " + question);
+        }
+        switch (question.getType()) {
+            case MULTIPLE_CHOICE:
+                return new MultipleChoiceScorer(question.getAnswer(0));
+            case FILL_BLANK:
+                return new FillBlankScorer(question.getAnswers());
+            default:
+                return new ShortAnswerScorer(question.getAnswer(0));
+        }
+    }
+
+    /**
+     * gets one string of a response
+     * @param response the response, may be null or short
+     * @param index which string
+     * @return the string, or null if it is missing
+     */
+    static String part(String[] response, int index) {
+        return response == null || index >= response.length ? null : response[index];
+    }
+
+    /**
+     * 1 point if the answer matches the key or one of its aliases
+     */
+    private static final class ShortAnswerScorer extends AnswerScorer {
+
+        /**
+         * matches answers against the correct answer
+         */
+        private final AnswerMatcher matcher;
+
+        /**
+         * constructor for a short answer scorer
+         * @param correctAnswer the correct answer, with any aliases
+         */
+        ShortAnswerScorer(String correctAnswer) {
+            this.matcher = new AnswerMatcher(correctAnswer);
+        }
+
+        @Override
+        public double score(String[] response) {
+            return matcher.matches(part(response, 0)) ? 1 : 0;
+        }
+    }
+
+    /**
+     * 1 point if the chosen option is the correct one
+     */
+    private static final class MultipleChoiceScorer extends AnswerScorer {
+
+        /**
+         * the correct choice
+         */
+        private final String correctChoice;
+
+        /**
+         * constructor for a multiple choice scorer
+         * @param correctChoice the correct choice
+         */
+        MultipleChoiceScorer(String correctChoice) {
+            this.correctChoice = correctChoice;
+        }
+
+        @Override
+        public double score(String[] response) {
+            return correctChoice.equals(part(response, 0)) ? 1 : 0;
+        }
+    }
+
+    /**
+     * a share of a point for every blank filled in correctly
+     */
+    private static final class FillBlankScorer extends AnswerScorer {
+
+        /**
+         * matches answers against the correct answer for each blank
+         */
+        private final AnswerMatcher[] blanks;
+
+        /**
+         * constructor for a fill in the blank scorer
+         * @param correctChoices the correct answer for each blank, with any aliases
+         */
+        FillBlankScorer(String[] correctChoices) {
+            blanks = new AnswerMatcher[correctChoices.length];
+            for (int i = 0; i < blanks.length; i++) {
+                blanks[i] = new AnswerMatcher(correctChoices[i]);
+            }
+        }
+
+        @Override
+        public double score(String[] response) {
+            int matched = 0;
+            for (int i = 0; i < blanks.length; i++) {
+                if (blanks[i].matches(part(response, i))) {
+                    matched++;
+                }
+            }
+            return matched / (double) blanks.length; // divided once, so every blank right is exactly 1.0
+        }
+    }
+}
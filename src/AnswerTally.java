@@ -0,0 +1,105 @@
+/**
+ * how many answers one player got right during the current game and their runs of right answers in a row,
+ * kept so a game can be added to their lifetime stats in one step at the end, see {@link PlayerStatsStore}
+ * an answer is right when it earns full points, questions a player never answered do not break a run
+ * only the thread reading the player's frames records, so plain volatile fields are enough like {@link AnswerTimes}
+ */
+public class AnswerTally {
+
+    /**
+     * how many answers were right
+     */
+    private volatile int correct;
+
+    /**
+     * the right answers in a row the game started with
+     */
+    private volatile int leadingRun;
+
+    /**
+     * the right answers in a row up to the last answer
+     */
+    private volatile int run;
+
+    /**
+     * the most right answers in a row
+     */
+    private volatile int bestRun;
+
+    /**
+     * whether every answer so far was right
+     */
+    private volatile boolean unbroken = true;
+
+    /**
+     * records one answer, only call from the thread reading the player's frames
+     * @param right true if it earned full points
+     */
+    public void record(boolean right) {
+        if (!right) {
+            run = 0;
+            unbroken = false;
+            return;
+        }
+        correct = correct + 1;
+        run = run + 1;
+        if (unbroken) {
+            leadingRun = run;
+        }
+        if (run > bestRun) {
+            bestRun = run;
+        }
+    }
+
+    /**
+     * forgets every answer, for a new game, only call while the player can not be answering
+     */
+    public void reset() {
+        correct = 0;
+        leadingRun = 0;
+        run = 0;
+        bestRun = 0;
+        unbroken = true;
+    }
+
+    /**
+     * copies the tally as it is now, for adding to the lifetime stats after the player's next game has reset it
+     * @return the copy
+     */
+    public AnswerTally copy() {
+        AnswerTally copy = new AnswerTally();
+        copy.correct = correct;
+        copy.leadingRun = leadingRun;
+        copy.run = run;
+        copy.bestRun = bestRun;
+        copy.unbroken = unbroken;
+        return copy;
+    }
+
+    /**
+     * getter for how many answers were right
+     * @return the number of right answers
+     */
+    public int getCorrect() {
+        return correct;
+    }
+
+    /**
+     * works out the best run of right answers ever once this game is added on
+     * @param streak the run the player had going before this game
+     * @param best the best run the player had before this game
+     * @return the best run
+     */
+    public int bestAfter(int streak, int best) {
+        return Math.max(best, Math.max(streak + leadingRun, bestRun));
+    }
+
+    /**
+     * works out the run of right answers the player has going once this game is added on
+     * @param streak the run the player had going before this game
+     * @return the run still going at the end of this game
+     */
+    public int streakAfter(int streak) {
+        return unbroken ? streak + run : run;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * how long one player has taken to answer during the current game
+ * only the thread reading the player's frames records, so plain volatile fields are enough and recording never locks,
+ * a reader on another thread may see one answer's numbers before another's
+ */
+public class AnswerTimes {
+
+    /**
+     * how many answers have been timed
+     */
+    private volatile int count;
+
+    /**
+     * all the times added together, in nanoseconds
+     */
+    private volatile long total;
+
+    /**
+     * the fastest answer in nanoseconds
+     */
+    private volatile long fastest = Long.MAX_VALUE;
+
+    /**
+     * the slowest answer in nanoseconds
+     */
+    private volatile long slowest;
+
+    /**
+     * records one answer, only call from the thread reading the player's frames
+     * @param nanos how long the answer took
+     */
+    public void record(long nanos) {
+        count = count + 1;
+        total = total + nanos;
+        if (nanos < fastest) {
+            fastest = nanos;
+        }
+        if (nanos > slowest) {
+            slowest = nanos;
+        }
+    }
+
+    /**
+     * forgets every answer, for a new game, only call while the player can not be answering
+     */
+    public void reset() {
+        count = 0;
+        total = 0;
+        fastest = Long.MAX_VALUE;
+        slowest = 0;
+    }
+
+    /**
+     * getter for how many answers have been timed
+     * @return the number of answers
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * getter for the average answer time
+     * @return the mean in nanoseconds, 0 if nothing has been answered
+     */
+    public double getMean() {
+        int answers = count;
+        return answers == 0 ? 0 : (double) total / answers;
+    }
+
+    /**
+     * getter for the fastest answer
+     * @return the fastest time in nanoseconds, 0 if nothing has been answered
+     */
+    public long getFastest() {
+        return count == 0 ? 0 : fastest;
+    }
+
+    /**
+     * getter for the slowest answer
+     * @return the slowest time in nanoseconds
+     */
+    public long getSlowest() {
+        return slowest;
+    }
+
+    /**
+     * describes the answer times for people to read
+     * @return the count, mean, fastest and slowest in seconds
+     */
+    public String describe() {
+        if (count == 0) {
+            return "no answers timed";
+        }
+        return String.format("%d answer(s), %.2f s on average, fastest %.2f s, slowest %.2f s", getCount(),
+                getMean() / 1e9, getFastest() / 1e9, getSlowest() / 1e9);
+    }
+}
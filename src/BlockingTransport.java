@@ -0,0 +1,275 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * transport that gives each player a task blocking on its socket
+ * the tasks can run on platform threads or, on Java 21 and newer, virtual threads
+ * nothing here holds a monitor while doing socket I/O, so virtual threads never pin their carrier
+ * output goes through a bounded {@link OutboundQueue} per player, written by a drain task on the same executor
+ * @author Austin Letsch
+ */
+public class BlockingTransport implements Transport {
+
+    /**
+     * how many bytes of a frame are copied and written at a time, the same as the JDK's own stream channels use
+     */
+    private static final int WRITE_CHUNK = 8192;
+
+    /**
+     * the port to listen on
+     */
+    private final int port;
+
+    /**
+     * executor service running one task per player
+     */
+    private final ExecutorService runGame;
+
+    /**
+     * how many frames each player's outbound queue holds
+     */
+    private final int queueCapacity;
+
+    /**
+     * what a full outbound queue does
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * constructor for a blocking transport using a cached thread pool and the default outbound queues
+     * @param port the port to listen on
+     */
+    public BlockingTransport(int port) {
+        this(port, Executors.newCachedThreadPool(), OutboundQueue.DEFAULT_CAPACITY, OverflowPolicy.DISCONNECT);
+    }
+
+    /**
+     * constructor for a blocking transport
+     * @param port the port to listen on
+     * @param runGame the executor to run each player's tasks on
+     * @param queueCapacity how many frames each player's outbound queue holds
+     * @param overflowPolicy what a full outbound queue does
+     */
+    public BlockingTransport(int port, ExecutorService runGame, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this.port = port;
+        this.runGame = runGame;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * makes an executor that starts a virtual thread for each task
+     * looked up by reflection so the server still builds and runs on Java versions without virtual threads
+     * @return the executor, or null if this Java does not have virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * accepts players forever, giving each one a task on the executor
+     * @param server the game to hand players to
+     */
+    @Override
+    public void serve(GameServer server) {
+        ServerSocket serverSocket = null;
+        try {
+            serverSocket = new ServerSocket(port, 100);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        server.displayMessage("Server awaiting connections\n");
+
+        while (true) {
+            try {
+                runGame.execute(new BlockingConnection(server, serverSocket.accept()));
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * one player's socket, read by its own task
+     * frames sent to the player are queued and written by a separate drain task, so whoever sends never blocks
+     */
+    private class BlockingConnection implements Connection, Runnable {
+
+        /**
+         * the game the player belongs to
+         */
+        private final GameServer server;
+
+        /**
+         * the connection socket
+         */
+        private final Socket socket;
+
+        /**
+         * the input stream from this player
+         */
+        private DataInputStream input;
+
+        /**
+         * the output to this player, written to directly, a channel from Channels.newChannel would hold a monitor
+         * around every blocking write and pin a virtual thread's carrier to a slow player
+         */
+        private OutputStream output;
+
+        /**
+         * where shared frames are copied to on their way to {output}, they are read only so their arrays are hidden,
+         * only touched by the one drain task running
+         */
+        private final byte[] scratch = new byte[WRITE_CHUNK];
+
+        /**
+         * frames waiting to be written
+         */
+        private final OutboundQueue queue = new OutboundQueue(queueCapacity, overflowPolicy);
+
+        /**
+         * true while a drain task is scheduled or running, so only one ever writes at a time
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        /**
+         * set once the connection has been closed
+         */
+        private volatile boolean closed = false;
+
+        /**
+         * the player on this connection, set once the game has made it
+         */
+        private volatile Player player;
+
+        /**
+         * constructor for a blocking connection
+         * @param server the game the player belongs to
+         * @param socket the accepted socket
+         */
+        BlockingConnection(GameServer server, Socket socket) {
+            this.server = server;
+            this.socket = socket;
+        }
+
+        /**
+         * reads frames from the player until the socket closes
+         */
+        @Override
+        public void run() {
+            try {
+                output = socket.getOutputStream();
+                input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                player = server.connect(this);
+                ServerMetrics metrics = server.getMetrics();
+                while (true) {
+                    Frame frame = Protocol.readFrame(input);
+                    metrics.bytesIn(Protocol.HEADER_LENGTH + frame.getLength());
+                    player.onFrame(frame); // may hand the connection to a resumed player
+                }
+            } catch (IOException e) {
+                // the player disconnected or sent something that is not a frame
+            } finally {
+                close();
+                if (player != null) {
+                    player.onClose(this);
+                }
+            }
+        }
+
+        /**
+         * queues a frame and makes sure a drain task is on its way
+         * @param frame the whole frame, length included, shared with other connections
+         */
+        @Override
+        public void send(ByteBuffer frame) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(frame.duplicate())) {
+                server.displayMessage("Disconnecting a player whose outbound queue is full\n");
+                close(); // the read loop notices and tells the player
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                runGame.execute(this::drain);
+            }
+        }
+
+        /**
+         * writes queued frames until the queue is empty
+         */
+        private void drain() {
+            while (true) {
+                ByteBuffer frame;
+                while ((frame = queue.poll()) != null) {
+                    try {
+                        while (frame.hasRemaining()) {
+                            int length = Math.min(frame.remaining(), scratch.length);
+                            frame.get(scratch, 0, length);
+                            output.write(scratch, 0, length);
+                            server.getMetrics().bytesOut(length);
+                        }
+                        if (Protocol.isQuestion(frame) && player != null) { // the player's answer time starts now
+                            player.onQuestionWritten(System.nanoTime());
+                        }
+                    } catch (IOException e) {
+                        close(); // leaves draining set, nothing more will be written
+                        return;
+                    }
+                }
+                draining.set(false);
+                if (queue.isEmpty() || !draining.compareAndSet(false, true)) { // something may have been queued after the last poll
+                    return;
+                }
+            }
+        }
+
+        /**
+         * getter for the queue of frames waiting to be written
+         * @return the queue
+         */
+        @Override
+        public OutboundQueue getOutboundQueue() {
+            return queue;
+        }
+
+        @Override
+        public void setPlayer(Player player) {
+            this.player = player;
+        }
+
+        /**
+         * closes the socket, which also ends the read loop
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
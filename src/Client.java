@@ -4,14 +4,18 @@ import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * class to run a client or player for the trivia game
@@ -19,15 +23,26 @@ import java.util.HashMap;
  */
 public class Client extends JFrame {
 
+    /**
+     * the longest first wait before reconnecting, each client waits a random part of it so a server blip does
+     * not bring every client back at once
+     */
+    private static final long FIRST_RETRY_MILLIS = 250;
+
+    /**
+     * the longest wait between reconnect attempts, the wait doubles up to this
+     */
+    private static final long MAX_RETRY_MILLIS = 4000;
+
     /**
      * the output stream to the server
      */
-    private ObjectOutputStream output;
+    private DataOutputStream output;
 
     /**
      * the input stream from the server
      */
-    private ObjectInputStream input;
+    private DataInputStream input;
 
     /**
      * the ip address of the server
@@ -49,6 +64,11 @@ public class Client extends JFrame {
      */
     private Question question;
 
+    /**
+     * the round answering the current question, sent back with the answer so a late one is never scored against the next
+     */
+    private volatile int roundId;
+
     /**
      * the top panel, starts as a way to input names and start the game and changes with each question
      */
@@ -74,6 +94,16 @@ public class Client extends JFrame {
      */
     private JButton inputNameButton;
 
+    /**
+     * the text field to enter a room to join
+     */
+    private JTextField roomInput;
+
+    /**
+     * button to join the room in roomInput
+     */
+    private JButton joinRoomButton;
+
     /**
      * button to start the game
      */
@@ -94,6 +124,30 @@ public class Client extends JFrame {
      */
     private boolean gameStarted = false;
 
+    /**
+     * media files already fetched from the server, by content hash
+     */
+    private final MediaCache mediaCache;
+
+    /**
+     * gives the view for each question as it arrives, one per type of question that is reused
+     */
+    private final QuestionViewFactory viewFactory = new QuestionViewFactory();
+
+    /**
+     * the media file being fetched for the current question, null if there is none
+     */
+    private MediaDownload download;
+
+    /**
+     * the token of this client's session on the server, null until the server sends it
+     */
+    private String sessionToken;
+
+    /**
+     * how long the server holds this client's seat after the connection drops, in seconds
+     */
+    private int resumeSeconds;
 
 
     /**
@@ -101,8 +155,18 @@ public class Client extends JFrame {
      * @param host the ip adress of the server
      */
     public Client(String host){
+        this(host, new MediaCache());
+    }
+
+    /**
+     * constrictor for the client
+     * @param host the ip adress of the server
+     * @param mediaCache where media fetched from the server is kept
+     */
+    public Client(String host, MediaCache mediaCache){
         super("Super Cool Trivia Game!!!!");
         server = host;
+        this.mediaCache = mediaCache;
 
         topPanel = new JPanel(); // top panel to begin with, a button to start the game and a field to input a name
         topPanel.setLayout(new FlowLayout());
@@ -112,6 +176,10 @@ public class Client extends JFrame {
         topPanel.add(nameInput);
         inputNameButton = new JButton("Submit name");
         topPanel.add(inputNameButton);
+        roomInput = new JTextField(10);
+        topPanel.add(roomInput);
+        joinRoomButton = new JButton("Join room");
+        topPanel.add(joinRoomButton);
         startButton = new JButton("Start game");
         topPanel.add(startButton);
         add(topPanel,BorderLayout.CENTER);
@@ -129,9 +197,8 @@ public class Client extends JFrame {
         submitButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                if(gameStarted){ // if the button is pressed after the game starts, sends the score to the server
-                    question.calculateScore();
-                    sendData(question.getScore());
+                if(gameStarted && question != null){ // if the button is pressed after the game starts, sends the answer for the server to score
+                    sendData(Protocol.encodeAnswer(roundId, question.getResponse()));
                 }
             }
         });
@@ -145,16 +212,25 @@ public class Client extends JFrame {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
                 name = nameInput.getText(); // sends name to server
-                sendData("NAME:" + name);
+                sendData(Protocol.encodeText(Protocol.NAME, name));
                 nameLabel.setText("Your name is: " + name );
             }
         });
 
+        joinRoomButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                if(!roomInput.getText().trim().equals("")){ // without a room players stay in the open lobby
+                    sendData(Protocol.encodeText(Protocol.JOIN, roomInput.getText().trim()));
+                }
+            }
+        });
+
         startButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
                 gameStarted = true; // starts the game
-                sendData("START");
+                sendData(Protocol.encodeEmpty(Protocol.START));
             }
         });
     }
@@ -166,7 +242,15 @@ public class Client extends JFrame {
         try{
             connectToServer();
             getStreams();
-            processConnection();
+            while (true) {
+                try {
+                    processConnection();
+                } catch (IOException e) {
+                    if (!reconnect()) {
+                        throw e;
+                    }
+                }
+            }
         }catch (EOFException e){
             displayMessage("\nClient terminated connection");
         }catch(IOException e){
@@ -186,14 +270,45 @@ public class Client extends JFrame {
         displayMessage("Connected to: " + client.getInetAddress().getHostName());
     }
 
+    /**
+     * connects again after the connection drops and asks the server for this client's old seat back
+     * waits with jittered exponential backoff between attempts and gives up once the server has let the seat go
+     * @return true if connected again, false if there is no session to resume or the time ran out
+     */
+    private boolean reconnect(){
+        if (sessionToken == null || resumeSeconds == 0) {
+            return false;
+        }
+        closeConnection();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(resumeSeconds);
+        long backoff = FIRST_RETRY_MILLIS;
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            try {
+                connectToServer();
+                getStreams();
+                Protocol.writeFrame(output, Protocol.encodeText(Protocol.RESUME, sessionToken));
+                return true;
+            } catch (IOException e) {
+                backoff = Math.min(backoff * 2, MAX_RETRY_MILLIS);
+            }
+        }
+        displayMessage("\nCould not reconnect in time");
+        return false;
+    }
+
     /**
      * gets the IO streams
      * @throws IOException an IO exception
      */
     private void getStreams() throws  IOException{
-        output = new ObjectOutputStream(client.getOutputStream());
-        output.flush();
-        input = new ObjectInputStream(client.getInputStream());
+        output = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+        input = new DataInputStream(new BufferedInputStream(client.getInputStream()));
         displayMessage("got IO streams\n");
     }
 
@@ -203,59 +318,103 @@ public class Client extends JFrame {
      */
     private void processConnection() throws IOException{
         do{
-            try{
-                Object received = input.readObject();
-                if(received instanceof String){ // will either receive a string or one of the types of questions from the server
-                    String message = (String) received;
+            Frame received = Protocol.readFrame(input);
+            switch (received.getType()) { // will either receive a message, a score or a question from the server
+                case Protocol.TEXT:
+                    String message = Protocol.decodeText(received);
                     if(message.equals("Game Started\n")){
                         gameStarted = true;
-                    }if(message.equals("amelia.jpeg")||message.equals("1200px-Antarctica_(orthographic_projection).svg.png")){
-                        question.addToMedia(message);
+                    }
+                    displayMessage(message);
+                    break;
+                case Protocol.SCORE:
+                    displayMessage("You got " + Protocol.decodeDouble(received) + " points on that question\n");
+                    break;
+                case Protocol.QUESTION:
+                    QuestionData data = Protocol.decodeQuestion(received);
+                    roundId = Protocol.decodeRoundId(received);
+                    Question view = viewFactory.viewFor(data);
+                    if (view != question) { // only swap panels when the type of question changes
                         topPanel.removeAll();
-                        topPanel.add(question.getMainPanel());
-                        this.repaint();
-                        this.revalidate();
-                        this.pack();
-                    }else {
-                        displayMessage(message);
+                        topPanel.add(view.getMainPanel());
                     }
-                } else if (received instanceof MultipleChoiceQuestion) {
-                    topPanel.removeAll();
-                    question = (MultipleChoiceQuestion) received;
-                    Question currQuestion = new MultipleChoiceQuestion((MultipleChoiceQuestion) question);
-                    question = currQuestion; // need to create a new version of the question each time to make the buttons work rightr
-                    topPanel.add(currQuestion.getMainPanel());
-                    this.repaint();
-                    this.revalidate();
-                    this.pack();
-                } else if (received instanceof ShortAnswerQuestion) {
-                    topPanel.removeAll();
-                    question = (Question) received;
-                    Question currQuestion = new ShortAnswerQuestion((ShortAnswerQuestion) question);
-                    question = currQuestion;
-                    topPanel.add(question.getMainPanel());
-                    this.repaint();
-                    this.revalidate();
-                    this.pack();
-                } else if (received instanceof FillBlankQuestion) {
-                    topPanel.removeAll();
-                    question = (Question) received;
-                    Question currQuestion = new FillBlankQuestion((FillBlankQuestion) question);
-                    question = currQuestion;
-                    topPanel.add(question.getMainPanel());
-                    this.repaint();
-                    this.revalidate();
-                    this.pack();
-                }
-
-            }
-            catch (ClassNotFoundException classNotFoundException){
-                displayMessage("\nUnknown object type received");
+                    question = view;
+                    showMedia(data.getMediaHash());
+                    fitToContents();
+                    break;
+                case Protocol.MEDIA_CHUNK:
+                    receiveMedia(Protocol.decodeMediaChunk(received));
+                    break;
+                case Protocol.SESSION: // kept so a dropped connection can take its seat back
+                    sessionToken = Protocol.decodeText(received);
+                    resumeSeconds = Protocol.decodeResumeSeconds(received);
+                    break;
+                default:
+                    displayMessage("\nUnknown message type received");
+                    break;
             }
 
         } while (true);
     }
 
+    /**
+     * shows the media of a new question from the cache, or starts fetching it from the server
+     * @param hash the content hash of the media, empty if the question has none
+     */
+    private void showMedia(String hash){
+        download = null;
+        if (hash.isEmpty()) {
+            return;
+        }
+        byte[] image = mediaCache.read(hash);
+        if (image != null) {
+            question.addToMedia(image);
+        } else {
+            download = new MediaDownload(hash);
+            sendData(download.nextRequest());
+        }
+    }
+
+    /**
+     * adds a chunk of media to the file being fetched, showing and caching the file once it is all here
+     * chunks for a question that has already gone are ignored
+     * @param chunk the chunk
+     */
+    private void receiveMedia(MediaChunk chunk){
+        if (download == null) {
+            return;
+        }
+        if (!download.accept(chunk)) {
+            if (download.shouldRetry(chunk)) {
+                sendData(download.nextRequest());
+            }
+            return;
+        }
+        if (download.needsNextWindow()) {
+            sendData(download.nextRequest());
+        } else if (download.isComplete()) {
+            byte[] image = download.getFile();
+            if (image != null) {
+                mediaCache.write(download.getHash(), image);
+                question.addToMedia(image);
+                fitToContents();
+            }
+            download = null;
+        }
+    }
+
+    /**
+     * lays the window out again after the question changes, only resizing it when the question no longer fits
+     * so a long session of questions does not repack the whole window every time
+     */
+    private void fitToContents(){
+        this.revalidate();
+        this.repaint();
+        Dimension preferred = getPreferredSize();
+        if (preferred.width > getWidth() || preferred.height > getHeight()) {
+            this.pack();
+        }
+    }
 
     /**
      * closes connection the the server
@@ -275,14 +434,13 @@ public class Client extends JFrame {
     }
 
     /**
-     * sends an object to the server
-     * @param send the object to send
+     * sends an encoded frame to the server
+     * @param send the frame to send, see {@link Protocol}
      */
-    private void sendData(Object send){
+    private void sendData(byte[] send){
 
         try{
-            output.writeObject(send);
-            output.flush();
+            Protocol.writeFrame(output, send);
         }catch (IOException e){
             displayArea.append("\n error writing object");
         }
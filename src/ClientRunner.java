@@ -1,4 +1,5 @@
 import javax.swing.*;
+import java.nio.file.Paths;
 
 /**
  * class for running a client
@@ -8,15 +9,18 @@ public class ClientRunner {
 
     /**
      * runner for the client
-     * @param args the arguments for the client, first one should be the server IP address
+     * @param args the arguments for the client, first one should be the server IP address,
+     *             the second can be the folder to cache question images in
      */
     public static void main(String[] args){
         Client client;
 
         if(args.length == 0){
             client = new Client("127.0.0.1");
-        }else {
+        }else if(args.length == 1){
             client = new Client(args[0]);
+        }else {
+            client = new Client(args[0], new MediaCache(Paths.get(args[1])));
         }
         client.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         client.runClient();
@@ -0,0 +1,35 @@
+import java.nio.ByteBuffer;
+
+/**
+ * the network side of one player, hides whether the transport uses blocking sockets or NIO
+ */
+public interface Connection {
+
+    /**
+     * queues an encoded frame for the player, see {@link Protocol}
+     * never blocks, the frame is written later by the transport, or dealt with by the queue's {@link OverflowPolicy}
+     * the same buffer may be sent to many connections at once, so implementations must write from a
+     * {@link java.nio.ByteBuffer#duplicate()} and never move or change the buffer itself
+     * @param frame the whole frame, length included, from {@link Protocol#share(byte[])}
+     */
+    void send(ByteBuffer frame);
+
+    /**
+     * getter for the queue of frames waiting to be written to the player
+     * @return the queue
+     */
+    OutboundQueue getOutboundQueue();
+
+    /**
+     * hands this connection's frames to another player, when a session is resumed on a new connection
+     * only called from the transport's thread for this connection, while it hands a frame to the current player
+     * @param player the player that now owns the connection
+     */
+    void setPlayer(Player player);
+
+    /**
+     * closes the connection, safe to call from any thread
+     * the player is told through {@link Player#onClose(Connection)} later on the transport's own thread, never inside this call
+     */
+    void close();
+}
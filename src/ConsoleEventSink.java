@@ -0,0 +1,18 @@
+/**
+ * event sink for running the server headless, writes every message to standard out
+ */
+public class ConsoleEventSink implements ServerEventSink {
+
+    /**
+     * prints a message to standard out, adding a line break if the message does not end with one
+     * @param message the message to report
+     */
+    @Override
+    public void displayMessage(String message) {
+        if (message.endsWith("\n")) {
+            System.out.print(message);
+        } else {
+            System.out.println(message);
+        }
+    }
+}
@@ -1,15 +1,29 @@
-import com.sun.source.tree.WhileLoopTree;
-
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Random;
-import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * a bank of questions and the questions one game has used from it
+ * the questions are kept as plain {@link QuestionData} with no Swing in them, so a bank of hundreds of thousands
+ * stays small and loads just as fast on a headless server,
+ * see {@link QuestionBankLoader} for loading one from a file
+ *
+ * each game draws through its own data set made with {@link #DataSet(DataSet, long)}, which shares the bank and keeps
+ * only its own place in a shuffle of it, so any number of games can draw from one bank at once
+ * a single data set is used by one game at a time and is not thread safe
+ */
 public class DataSet {
 
     /**
-     * the array list of questions
+     * the plain data of every question in the bank, shared by every game
      */
-    public ArrayList<Question> questionList = new ArrayList<Question>(15);
+    private final QuestionData[] dataList;
+
+    /**
+     * the scorer for each question, compiled the first time the question is drawn and then shared by every game
+     * scorers never change once made, so a game that misses another game's scorer just compiles an equal one
+     */
+    private final AnswerScorer[] scorers;
 
     /**
      * the current random index to pull a question from the list
@@ -17,63 +31,123 @@ public class DataSet {
     private int index;
 
     /**
-     * contains an array list of the indexes already used
+     * the seed the draws come from, the same seed draws the same questions in the same order
+     */
+    private final long seed;
+
+    /**
+     * makes the draws, seeded with {seed}
      */
-    private ArrayList<Integer> indexesUsed;
+    private final Random random;
 
     /**
-     * constructor for a data set
-     * initialises a list of 14 questions
+     * the positions of the shuffle that no longer hold their own index, by position
+     * only positions from {drawn} on are kept, so this never holds more entries than questions drawn
      */
-    public DataSet(){
-        questionList.add( new ShortAnswerQuestion("Who was the first president of the U.S.?", "George Washington"));
-        questionList.add( new ShortAnswerQuestion("What does 'He' stand for in the periodic table?", "Helium"));
-        questionList.add(new ShortAnswerQuestion("What is the southern most continent?", "Antarctica"));
-        questionList.add( new MultipleChoiceQuestion("How long is an Olympic swimming pool?", new String[]{"25 meters", "50 meters", "75 meters", "100 meters"}, "50 meters"));
-        questionList.add( new MultipleChoiceQuestion("How many branches of the government are there?", new String[]{"3", "5", "10"}, "3"));
-        questionList.add( new MultipleChoiceQuestion("What is cynophobia?", new String[]{"Fear of bananas", "Fear of the color cyan", "Fear of dogs", "Fear of yogurt"}, "Fear of dogs"));
-        questionList.add( new FillBlankQuestion("Amelia _____ was first first solo woman to fly solo across the _____ Ocean.", 2, new String[] {"Earhart", "Atlantic"}));
-        questionList.add( new FillBlankQuestion("The common name for dried plums is _____", 1, new String[] {"prunes"}));
-        questionList.add( new ShortAnswerQuestion("What was the first soft drink in space?", "Coke"));
-        questionList.add( new ShortAnswerQuestion("What is the only non-perishable food?", "honey"));
-        questionList.add( new MultipleChoiceQuestion("Which country invented ice cream?", new String[] {"Switzerland", "Italy", "Spain", "China"}, "China"));
-        questionList.add( new MultipleChoiceQuestion("What was the first toy to be advertised on television?", new String[] {"Magic 8 Ball", "Mr. Potato Head", "Slinky", "Matchbox cars"}, "Mr. Potato Head"));
-        questionList.add( new FillBlankQuestion("A baby _____ is termed a 'kid', hint: it's an animal.", 1, new String[] {"goat"}));
-        questionList.add( new FillBlankQuestion("The best class ever is: _____", 1, new String[]{"SWD"}));
+    private final HashMap<Integer, Integer> shuffled = new HashMap<>();
 
-        questionList.get(6).addToMedia("amelia.jpeg");
-        questionList.get(2).addToMedia("1200px-Antarctica_(orthographic_projection).svg.png");
+    /**
+     * how many questions have been drawn in this pass through the bank, the shuffle's cursor
+     */
+    private int drawn;
 
-        indexesUsed =  new ArrayList<>();
+    /**
+     * constructor for a data set holding the given questions
+     * @param questions the questions, not copied, so they must not be changed afterwards
+     */
+    public DataSet(QuestionData[] questions){
+        if (questions.length == 0) {
+            throw new IllegalArgumentException("a data set needs at least one question");
+        }
+        dataList = questions;
+        scorers = new AnswerScorer[questions.length];
+        seed = ThreadLocalRandom.current().nextLong();
+        random = new Random(seed);
     }
 
     /**
-     * gets the question at the index generated in get new random
-     * @return the question at index {index}
+     * constructor for a data set that shares the questions of another one
+     * lets every game keep track of its own used questions without building the questions again
+     * @param bank the data set to take the questions from
      */
-    public Question getRandomQuestion(){
-        return questionList.get(index);
+    public DataSet(DataSet bank){
+        this(bank, ThreadLocalRandom.current().nextLong());
     }
 
     /**
-     * makes the index into a new random number in the array list
+     * constructor for a data set that shares the questions of another one and draws them in the order given by a seed
+     * @param bank the data set to take the questions from
+     * @param seed the seed, a game given the seed of an earlier game is asked the same questions
+     */
+    public DataSet(DataSet bank, long seed){
+        dataList = bank.dataList;
+        scorers = bank.scorers;
+        this.seed = seed;
+        random = new Random(seed);
+    }
+
+    /**
+     * gets the plain data of the question at the index generated in get new random
+     * @return the data of the question at index {index}
+     */
+    public QuestionData getRandomQuestionData(){
+        return dataList[index];
+    }
+
+    /**
+     * gets the scorer for the question at the index generated in get new random
+     * @return the scorer of the question at index {index}
+     */
+    public AnswerScorer getRandomScorer(){
+        AnswerScorer scorer = scorers[index];
+        if (scorer == null) {
+            scorer = AnswerScorer.compile(dataList[index]);
+            scorers[index] = scorer;
+        }
+        return scorer;
+    }
+
+    /**
+     * Getter for how many questions are in the bank
+     * @return {int}
+     */
+    public int size(){
+        return dataList.length;
+    }
+
+    /**
+     * Getter for the seed the questions are drawn from
+     * @return {long}
+     */
+    public long getSeed(){
+        return seed;
+    }
+
+    /**
+     * makes the index into a new random question that this data set has not drawn yet
+     * takes one step of a Fisher-Yates shuffle, so every draw takes the same time however big the bank is
+     * once every question has been drawn the shuffle starts again
      */
     public void getNewRandom() {
-        Random rand = new Random();
-        index = rand.nextInt(14);
-        boolean used = true;
-        while (used) {
-            used = false;
-            for (int i : indexesUsed) {
-                if (i == index) {
-                    used = true;
-                }
-            }
-            if (used) {
-                index = rand.nextInt(14);
-            }
+        if (drawn == dataList.length) {
+            drawn = 0;
+            shuffled.clear();
         }
-        indexesUsed.add(index);
+        int pick = drawn + random.nextInt(dataList.length - drawn);
+        index = shuffledAt(pick);
+        shuffled.put(pick, shuffledAt(drawn));
+        shuffled.remove(drawn);
+        drawn++;
+    }
+
+    /**
+     * gets the question index at a position of the shuffle
+     * @param position the position
+     * @return the index there, positions that have not been swapped hold their own index
+     */
+    private int shuffledAt(int position) {
+        Integer swapped = shuffled.get(position);
+        return swapped == null ? position : swapped;
     }
 
 }
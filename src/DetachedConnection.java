@@ -0,0 +1,30 @@
+import java.nio.ByteBuffer;
+
+/**
+ * the connection of a player restored from the {@link GameJournal} after a restart, before they resume their
+ * session on a real one, anything sent to it is dropped
+ */
+public class DetachedConnection implements Connection {
+
+    /**
+     * always empty, nothing is ever queued
+     */
+    private final OutboundQueue queue = new OutboundQueue(1, OverflowPolicy.DROP);
+
+    @Override
+    public void send(ByteBuffer frame) {
+    }
+
+    @Override
+    public OutboundQueue getOutboundQueue() {
+        return queue;
+    }
+
+    @Override
+    public void setPlayer(Player player) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
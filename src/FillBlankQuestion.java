@@ -1,6 +1,7 @@
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
 
 /**
  * Class for fill in the blank questions, extends class Questionnaire
@@ -13,11 +14,6 @@ public class FillBlankQuestion extends Question{
      */
     private int blanksNum;
 
-    /**
-     * {double} contains the score of the question
-     */
-    private double score=0;
-
     /**
      * {String[]} contains all of the correct answers for the question
      */
@@ -34,14 +30,35 @@ public class FillBlankQuestion extends Question{
     private String[] splitQuestionDescription;
 
     /**
-     * {JTextField[]} contains the text fields for each of the blanks
+     * {JTextField[]} contains the text fields for each of the blanks, kept for later questions and only added to
+     */
+    private JTextField[] blanks = new JTextField[0];
+
+    /**
+     * {JTextField[]} contains the text fields for each part of the question between the blanks, kept like blanks
      */
-    private JTextField[] blanks;
+    private JTextField[] splitQuestion = new JTextField[0];
 
     /**
-     * {JTextField[]} contains the text fields for each of the blanks in the question
+     * {ActionListener} shared by every blank
      */
-    private JTextField[] splitQuestion;
+    private final ActionListener blanksListener = new ActionListener(){
+
+        /**
+         * Specifies actions to take when a button is pressed
+         * @param actionEvent {ActionEvent}
+         */
+        @Override
+        public void actionPerformed (ActionEvent actionEvent){
+            String[] userAnswers = new String[getBlanksNum()];
+            for(int i=0; i<getBlanksNum(); i++){
+                if(actionEvent.getSource().equals(blanks[i])){
+                    userAnswers[i] = blanks[i].getText();
+                }
+            }
+            setUserAnswers(userAnswers);
+        }
+    };
 
     /**
      * FillBlankQuestion constructor, calls super constructor with question prompt specific to fill in the blank questions, sets number of blanks
@@ -49,50 +66,45 @@ public class FillBlankQuestion extends Question{
      * @param blanksNum {int}
      */
     public FillBlankQuestion(String questionDescription, int blanksNum, String[] correctChoices){
-        super(questionDescription, "Please fill in the blanks in the following question.");
+        super(questionDescription, QuestionType.FILL_BLANK.getPrompt());
         setBlanksNum(blanksNum);
         setSplitQuestionDescription();
         setCorrectChoices(correctChoices);
+        layoutBlanks();
+    }
 
-        blanks = new JTextField[blanksNum];
-        splitQuestion = new JTextField[getSplitQuestionDescription().length];
-
-        for(int i=0; i<blanksNum; i++){
-            blanks[i] = new JTextField(20);
-        }
-        for(int i=0; i<getSplitQuestionDescription().length; i++){
-            splitQuestion[i] = new JTextField(getSplitQuestionDescription()[i]);
-            splitQuestion[i].setEditable(false);
+    /**
+     * puts the parts of the question and the blanks in order, reusing the text fields of earlier questions
+     * and only making new ones when this question has more parts or blanks than any before it
+     */
+    private void layoutBlanks(){
+        String[] parts = getSplitQuestionDescription();
+        if (blanks.length < blanksNum) {
+            JTextField[] grown = Arrays.copyOf(blanks, blanksNum);
+            for(int i=blanks.length; i<blanksNum; i++){
+                grown[i] = new JTextField(20);
+                grown[i].addActionListener(blanksListener);
+            }
+            blanks = grown;
         }
-
-        ActionListener[] blanksListener = new ActionListener[getBlanksNum()];
-
-        for(int i=0; i<getBlanksNum(); i++) {
-            blanksListener[i] = new ActionListener(){
-
-                /**
-                 * Specifies actions to take when a button is pressed
-                 * @param actionEvent {ActionEvent}
-                 */
-                @Override
-                public void actionPerformed (ActionEvent actionEvent){
-                    String[] userAnswers = new String[getBlanksNum()];
-                    for(int i=0; i<getBlanksNum(); i++){
-                        if(actionEvent.getSource().equals(blanks[i])){
-                            userAnswers[i] = blanks[i].getText();
-                        }
-                    }
-                    setUserAnswers(userAnswers);
-                }
-            } ;
+        if (splitQuestion.length < parts.length) {
+            JTextField[] grown = Arrays.copyOf(splitQuestion, parts.length);
+            for(int i=splitQuestion.length; i<parts.length; i++){
+                grown[i] = new JTextField();
+                grown[i].setEditable(false);
+            }
+            splitQuestion = grown;
         }
 
-
-        for(int i=0; i<getSplitQuestionDescription().length; i++){
-            for(int j=0; j<getBlanksNum(); j++){
+        clearQuestionOptions();
+        for(int i=0; i<Math.max(parts.length, blanksNum); i++){
+            if (i < parts.length) {
+                splitQuestion[i].setText(parts[i]);
                 addToQuestionOptions(splitQuestion[i]);
-                blanks[j].addActionListener(blanksListener[j]);
-                addToQuestionOptions(blanks[j]);
+            }
+            if (i < blanksNum) {
+                blanks[i].setText("");
+                addToQuestionOptions(blanks[i]);
             }
         }
     }
@@ -141,7 +153,7 @@ public class FillBlankQuestion extends Question{
      * sets the split question based on where the blanks are
      */
     public void setSplitQuestionDescription(){
-        splitQuestionDescription = getQuestionDescription().split("_____"); // 5 underscores
+        splitQuestionDescription = getQuestionDescription().split(QuestionData.BLANK);
     }
 
     /**
@@ -166,22 +178,29 @@ public class FillBlankQuestion extends Question{
 
 
     /**
-     * calculates the score based on how many blanks were correct/the number of blanks
+     * Implementation of super bindOptions method, lays out the new question with empty blanks
+     * @param data {QuestionData}
      */
     @Override
-    public void calculateScore(){
-        double blanksNum = (double)(getBlanksNum());
-        try {
-            for (int i=0; i < getBlanksNum(); i++){
-                if(blanks[i].getText().equalsIgnoreCase(getCorrectChoices()[i])){
-                    score += 1/blanksNum;
-                }
-            }
-            setScore(score);
-        }
-        catch(NullPointerException exception){
-            addToQuestionOptions(new JTextField("Choices may have not be initialized"));
+    protected void bindOptions(QuestionData data) {
+        setBlanksNum(data.getBlanksNum());
+        setSplitQuestionDescription();
+        setCorrectChoices(data.getAnswers());
+        setUserAnswers(null);
+        layoutBlanks();
+    }
+
+    /**
+     * gives what the user has typed in each blank
+     * @return {String[]}
+     */
+    @Override
+    public String[] getResponse(){
+        String[] response = new String[getBlanksNum()];
+        for (int i=0; i < getBlanksNum(); i++){
+            response[i] = blanks[i].getText();
         }
+        return response;
     }
 
     /**
@@ -0,0 +1,75 @@
+import java.nio.ByteBuffer;
+
+/**
+ * one message read off the wire, a type from {@link Protocol} and the bytes that follow it
+ */
+public final class Frame {
+
+    /**
+     * the message type
+     */
+    private final byte type;
+
+    /**
+     * the payload, positioned at its first byte
+     */
+    private final ByteBuffer payload;
+
+    /**
+     * when the frame came off the socket, from {@link System#nanoTime()}
+     */
+    private final long receivedAt;
+
+    /**
+     * constructor for a frame that has just been read
+     * @param type the message type
+     * @param payload the payload
+     */
+    public Frame(byte type, ByteBuffer payload) {
+        this(type, payload, System.nanoTime());
+    }
+
+    /**
+     * constructor for a frame
+     * @param type the message type
+     * @param payload the payload
+     * @param receivedAt when it came off the socket, from {@link System#nanoTime()}
+     */
+    public Frame(byte type, ByteBuffer payload, long receivedAt) {
+        this.type = type;
+        this.payload = payload;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * getter for the message type
+     * @return the message type
+     */
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * getter for when the frame came off the socket, taken by the transport before the game sees it
+     * @return the time from {@link System#nanoTime()}
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    /**
+     * getter for how long the frame was on the wire, not counting the length in front of it
+     * @return the type byte plus the payload
+     */
+    public int getLength() {
+        return 1 + payload.remaining();
+    }
+
+    /**
+     * getter for the payload, each call gives a separate view so decoding does not move another reader
+     * @return the payload
+     */
+    public ByteBuffer getPayload() {
+        return payload.duplicate();
+    }
+}
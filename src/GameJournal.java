@@ -0,0 +1,862 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * an append only record of every game in progress, so a server that dies can rebuild its games when it restarts
+ * records go into memory mapped segment files, a writer reserves its space with one atomic add and copies the
+ * record straight into the mapping, so answers never lock, allocate or wait on the disk
+ * a background thread forces the mapping to disk every few milliseconds, a crash loses at most that much
+ * each record is its length, a checksum written last and the body, padded to {@value #ALIGNMENT} bytes, a record
+ * with a bad checksum was still being written and is skipped, a length of 0 is space a writer reserved but never
+ * wrote, or the unwritten end of the segment, and is stepped over to the next record
+ * segments are deleted once every game journaled in them has ended
+ * a journal made without a folder records nothing
+ */
+public class GameJournal {
+
+    /**
+     * how often the journal is forced to disk unless the server is told otherwise, in milliseconds
+     */
+    public static final long DEFAULT_SYNC_MILLIS = 50;
+
+    /**
+     * how big each segment file is
+     */
+    static final int SEGMENT_BYTES = 16 << 20;
+
+    /**
+     * the first bytes of every segment file
+     */
+    private static final int MAGIC = 0x54524a31;
+
+    /**
+     * how many bytes each segment starts with before its first record
+     */
+    private static final int SEGMENT_HEADER = 8;
+
+    /**
+     * how many bytes each record has before its body, the length and the checksum
+     */
+    private static final int RECORD_HEADER = 8;
+
+    /**
+     * every record starts on a multiple of this many bytes, so a reader can step over a gap to the next one
+     */
+    private static final int ALIGNMENT = 8;
+
+    /**
+     * the biggest record body, anything bigger is a torn length and is stepped over
+     */
+    private static final int MAX_BODY = SEGMENT_BYTES / 4;
+
+    /**
+     * a game's room, seed, questions asked and every seat with its score, written when a game starts or is restored
+     */
+    private static final byte GAME_STATE = 1;
+
+    /**
+     * a question was sent, the game's question number and the round answering it
+     */
+    private static final byte QUESTION_SENT = 2;
+
+    /**
+     * a player answered a round, with their score after it
+     */
+    private static final byte ANSWERED = 3;
+
+    /**
+     * a player left a game for good
+     */
+    private static final byte LEFT = 4;
+
+    /**
+     * a game ended or was abandoned
+     */
+    private static final byte GAME_ENDED = 5;
+
+    /**
+     * each writing thread's record buffer and checksum, reused for every record it writes
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * one seat of a game read back from the journal
+     */
+    public static final class Seat {
+
+        /**
+         * the session id of the player in the seat
+         */
+        private final long sessionId;
+
+        /**
+         * the token that resumes the player's session
+         */
+        private final String token;
+
+        /**
+         * the player's name
+         */
+        private final String name;
+
+        /**
+         * the player's score
+         */
+        private double score;
+
+        /**
+         * the last round the player answered
+         */
+        private int answeredRound;
+
+        /**
+         * constructor for a seat
+         * @param sessionId the session id of the player
+         * @param token the token that resumes their session
+         * @param name their name
+         * @param score their score
+         */
+        private Seat(long sessionId, String token, String name, double score) {
+            this.sessionId = sessionId;
+            this.token = token;
+            this.name = name;
+            this.score = score;
+        }
+
+        /**
+         * getter for the session id of the player in the seat
+         * @return the session id
+         */
+        public long getSessionId() {
+            return sessionId;
+        }
+
+        /**
+         * getter for the token that resumes the player's session
+         * @return the token
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * getter for the player's name
+         * @return the name, empty if they never gave one
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * getter for the player's score
+         * @return the score
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * getter for the last round the player answered
+         * @return the round id, 0 if they have not answered this game
+         */
+        public int getAnsweredRound() {
+            return answeredRound;
+        }
+    }
+
+    /**
+     * a game that was in progress when the journal was last written
+     */
+    public static final class Game {
+
+        /**
+         * the id of the game
+         */
+        private final long gameId;
+
+        /**
+         * the name of the room it was played in
+         */
+        private final String room;
+
+        /**
+         * the seed its questions were drawn from
+         */
+        private final long seed;
+
+        /**
+         * how many questions had been sent
+         */
+        private int questionsSent;
+
+        /**
+         * the round answering the last question sent
+         */
+        private int roundId;
+
+        /**
+         * every seat still in the game, by session id
+         */
+        private final Map<Long, Seat> seats = new LinkedHashMap<>();
+
+        /**
+         * constructor for a game
+         * @param gameId the id of the game
+         * @param room the name of its room
+         * @param seed the seed its questions are drawn from
+         * @param questionsSent how many questions had been sent
+         * @param roundId the round answering the last question sent
+         */
+        private Game(long gameId, String room, long seed, int questionsSent, int roundId) {
+            this.gameId = gameId;
+            this.room = room;
+            this.seed = seed;
+            this.questionsSent = questionsSent;
+            this.roundId = roundId;
+        }
+
+        /**
+         * getter for the id of the game
+         * @return the game id
+         */
+        public long getGameId() {
+            return gameId;
+        }
+
+        /**
+         * getter for the name of the room the game was played in
+         * @return the room name
+         */
+        public String getRoom() {
+            return room;
+        }
+
+        /**
+         * getter for the seed the game's questions are drawn from
+         * @return the seed
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * getter for how many questions had been sent
+         * @return the number of questions, the last one was being answered
+         */
+        public int getQuestionsSent() {
+            return questionsSent;
+        }
+
+        /**
+         * getter for the round answering the last question sent
+         * @return the round id
+         */
+        public int getRoundId() {
+            return roundId;
+        }
+
+        /**
+         * getter for every seat still in the game
+         * @return the seats, in the order they were journaled
+         */
+        public Collection<Seat> getSeats() {
+            return seats.values();
+        }
+    }
+
+    /**
+     * one segment file mapped into memory
+     */
+    private static final class Segment {
+
+        /**
+         * the number of the segment, later segments have bigger numbers
+         */
+        private final long index;
+
+        /**
+         * the segment file
+         */
+        private final Path file;
+
+        /**
+         * the mapping records are written to, null for a segment left from before a restart
+         */
+        private final MappedByteBuffer buffer;
+
+        /**
+         * where the next record goes, grows past the end of the segment once it is full
+         */
+        private final AtomicInteger position = new AtomicInteger(SEGMENT_HEADER);
+
+        /**
+         * how many bytes of records have been completely written, checksum and all
+         */
+        private final LongAdder completed = new LongAdder();
+
+        /**
+         * where the first record that did not fit would have gone, the records before it fill the segment up to
+         * here, {@link Integer#MAX_VALUE} until the segment is full
+         */
+        private final AtomicInteger end = new AtomicInteger(Integer.MAX_VALUE);
+
+        /**
+         * how many bytes of records had been completed the last time the segment was forced, only touched by the sync thread
+         */
+        private long forced;
+
+        /**
+         * constructor for a segment
+         * @param index the number of the segment
+         * @param file the segment file
+         * @param buffer the mapping, null for a segment left from before a restart
+         */
+        private Segment(long index, Path file, MappedByteBuffer buffer) {
+            this.index = index;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * a writing thread's record buffer and checksum
+     */
+    private static final class Scratch {
+
+        /**
+         * the body of the record being written, grown if a record does not fit
+         */
+        private ByteBuffer body = ByteBuffer.allocate(256);
+
+        /**
+         * checksums the body
+         */
+        private final CRC32C crc = new CRC32C();
+
+        /**
+         * starts a new record, making sure its body has room
+         * @param type the type of the record
+         * @param size how many bytes the body will need, the type included
+         * @return the body, ready to be written
+         */
+        private ByteBuffer begin(byte type, int size) {
+            if (body.capacity() < size) {
+                body = ByteBuffer.allocate(Integer.highestOneBit(size) << 1);
+            }
+            body.clear();
+            return body.put(type);
+        }
+    }
+
+    /**
+     * the folder the segments are in, null if nothing is journaled
+     */
+    private final Path directory;
+
+    /**
+     * how often the journal is forced to disk, in milliseconds
+     */
+    private final long syncMillis;
+
+    /**
+     * where problems with the journal are reported
+     */
+    private final ServerEventSink events;
+
+    /**
+     * the segment records are written to, null once the journal has failed
+     */
+    private volatile Segment current;
+
+    /**
+     * segments that filled up and still need a last force, handed to the sync thread
+     */
+    private final ArrayDeque<Segment> filled = new ArrayDeque<>();
+
+    /**
+     * filled segments still waiting on writers that reserved space in them, only touched by the sync thread
+     */
+    private final List<Segment> finishing = new ArrayList<>();
+
+    /**
+     * forced segments waiting for their games to end so they can be deleted, oldest first, only touched by the sync thread
+     */
+    private final ArrayDeque<Segment> retired = new ArrayDeque<>();
+
+    /**
+     * the segment each game in progress started in, by game id, a segment is kept while any game here needs it
+     */
+    private final ConcurrentHashMap<Long, Long> openGames = new ConcurrentHashMap<>();
+
+    /**
+     * the games that were in progress in the segments found when the journal was opened
+     */
+    private final List<Game> recovered = new ArrayList<>();
+
+    /**
+     * the biggest session id found in the journal
+     */
+    private long lastSessionId;
+
+    /**
+     * the biggest game id found in the journal
+     */
+    private long lastGameId;
+
+    /**
+     * constructor for a journal that records nothing
+     */
+    public GameJournal() {
+        this.directory = null;
+        this.syncMillis = DEFAULT_SYNC_MILLIS;
+        this.events = null;
+    }
+
+    /**
+     * constructor for a journal, reads back the games in progress in any segments already in the folder
+     * then starts a new segment after them, call {@link #start()} once the recovered games have been restored
+     * @param directory the folder to keep the segments in, made if it is missing
+     * @param syncMillis how often the journal is forced to disk, in milliseconds
+     * @param events where to report problems with the journal
+     * @throws IOException if the folder or a segment can not be read or made
+     */
+    public GameJournal(Path directory, long syncMillis, ServerEventSink events) throws IOException {
+        if (syncMillis <= 0) {
+            throw new IllegalArgumentException("The journal sync interval must be positive");
+        }
+        this.directory = directory;
+        this.syncMillis = syncMillis;
+        this.events = events;
+        Files.createDirectories(directory);
+        Map<Long, Game> games = new LinkedHashMap<>();
+        long next = 0;
+        for (Segment old : existingSegments()) {
+            read(old.file, games);
+            retired.add(old); // deleted by the sync thread once every game restored from it is journaled again
+            next = old.index + 1;
+        }
+        recovered.addAll(games.values());
+        current = open(next);
+    }
+
+    /**
+     * starts forcing the journal to disk in the background, does nothing for a journal that records nothing
+     */
+    public void start() {
+        if (directory == null) {
+            return;
+        }
+        Thread sync = new Thread(this::syncForever, "journal-sync");
+        sync.setDaemon(true);
+        sync.start();
+    }
+
+    /**
+     * getter for the games that were in progress when the journal was last written
+     * @return the games, empty for a new journal
+     */
+    public List<Game> getRecovered() {
+        return recovered;
+    }
+
+    /**
+     * getter for the biggest session id in the journal, new sessions must be given bigger ones
+     * @return the session id, 0 if there was none
+     */
+    public long getLastSessionId() {
+        return lastSessionId;
+    }
+
+    /**
+     * getter for the biggest game id in the journal, new games must be given bigger ones
+     * @return the game id, 0 if there was none
+     */
+    public long getLastGameId() {
+        return lastGameId;
+    }
+
+    /**
+     * records the state of a game as it starts or is restored, everything later about the game builds on this
+     * @param gameId the id of the game
+     * @param room the name of its room
+     * @param seed the seed its questions are drawn from
+     * @param questionsSent how many questions have been sent
+     * @param seats every player in the game
+     */
+    public void gameState(long gameId, String room, long seed, int questionsSent, Player[] seats) {
+        Segment segment = current;
+        if (segment == null) {
+            return;
+        }
+        byte[] roomName = room.getBytes(StandardCharsets.UTF_8);
+        byte[][] tokens = new byte[seats.length][];
+        byte[][] names = new byte[seats.length][];
+        int size = 1 + 8 + 2 + roomName.length + 8 + 4 + 4;
+        for (int i = 0; i < seats.length; i++) {
+            tokens[i] = seats[i].getToken() == null ? new byte[0] : seats[i].getToken().getBytes(StandardCharsets.UTF_8);
+            names[i] = seats[i].getPlayerName().getBytes(StandardCharsets.UTF_8);
+            size += 8 + 2 + tokens[i].length + 2 + names[i].length + 8;
+        }
+        Scratch scratch = SCRATCH.get();
+        ByteBuffer body = scratch.begin(GAME_STATE, size);
+        body.putLong(gameId).putShort((short) roomName.length).put(roomName).putLong(seed).putInt(questionsSent)
+                .putInt(seats.length);
+        for (int i = 0; i < seats.length; i++) {
+            body.putLong(seats[i].getSessionId()).putShort((short) tokens[i].length).put(tokens[i])
+                    .putShort((short) names[i].length).put(names[i]).putDouble(seats[i].getScore());
+        }
+        openGames.putIfAbsent(gameId, segment.index);
+        append(scratch);
+    }
+
+    /**
+     * records a question being sent
+     * @param gameId the id of the game
+     * @param questionNumber how many questions the game has sent, this one included
+     * @param roundId the round answering it
+     */
+    public void questionSent(long gameId, int questionNumber, int roundId) {
+        if (current == null) {
+            return;
+        }
+        Scratch scratch = SCRATCH.get();
+        scratch.begin(QUESTION_SENT, 17).putLong(gameId).putInt(questionNumber).putInt(roundId);
+        append(scratch);
+    }
+
+    /**
+     * records a player's answer, called on the answer path so it never locks or allocates
+     * @param gameId the id of the game
+     * @param sessionId the player's session id
+     * @param roundId the round they answered
+     * @param score their score after the answer
+     */
+    public void answered(long gameId, long sessionId, int roundId, double score) {
+        if (current == null) {
+            return;
+        }
+        Scratch scratch = SCRATCH.get();
+        scratch.begin(ANSWERED, 29).putLong(gameId).putLong(sessionId).putInt(roundId).putDouble(score);
+        append(scratch);
+    }
+
+    /**
+     * records a player leaving a game for good
+     * @param gameId the id of the game
+     * @param sessionId the player's session id
+     */
+    public void left(long gameId, long sessionId) {
+        if (current == null) {
+            return;
+        }
+        Scratch scratch = SCRATCH.get();
+        scratch.begin(LEFT, 17).putLong(gameId).putLong(sessionId);
+        append(scratch);
+    }
+
+    /**
+     * records a game ending, nothing about it is needed after this
+     * @param gameId the id of the game
+     */
+    public void gameEnded(long gameId) {
+        if (current == null) {
+            return;
+        }
+        Scratch scratch = SCRATCH.get();
+        scratch.begin(GAME_ENDED, 9).putLong(gameId);
+        append(scratch);
+        openGames.remove(gameId);
+    }
+
+    /**
+     * copies a record into the current segment, moving to a new segment when it is full
+     * the length goes in first and the checksum last, so a record cut off part way is never read back
+     * @param scratch the thread's scratch holding the record body
+     */
+    private void append(Scratch scratch) {
+        ByteBuffer body = scratch.body;
+        int length = body.position();
+        scratch.crc.reset();
+        scratch.crc.update(body.array(), 0, length);
+        int crc = (int) scratch.crc.getValue();
+        int size = (RECORD_HEADER + length + ALIGNMENT - 1) & -ALIGNMENT;
+        while (true) {
+            Segment segment = current;
+            if (segment == null) {
+                return;
+            }
+            int at = segment.position.getAndAdd(size);
+            if (at >= 0 && at <= SEGMENT_BYTES - size) {
+                MappedByteBuffer out = segment.buffer;
+                out.putInt(at, length);
+                int offset = at + RECORD_HEADER;
+                int i = 0;
+                for (; i + 8 <= length; i += 8) {
+                    out.putLong(offset + i, body.getLong(i));
+                }
+                for (; i < length; i++) {
+                    out.put(offset + i, body.get(i));
+                }
+                out.putInt(at + 4, crc); // the record counts from here on
+                segment.completed.add(size);
+                return;
+            }
+            if (at >= 0) {
+                segment.end.accumulateAndGet(at, Math::min);
+            }
+            roll(segment);
+        }
+    }
+
+    /**
+     * moves writing on to a new segment once the current one is full, the writer that finds it full does this
+     * @param full the segment that filled up
+     */
+    private synchronized void roll(Segment full) {
+        if (current != full) { // another writer already moved on
+            return;
+        }
+        try {
+            current = open(full.index + 1);
+        } catch (IOException e) {
+            current = null;
+            events.displayMessage("Journal stopped, could not start a new segment: " + e.getMessage() + "\n");
+        }
+        filled.add(full);
+    }
+
+    /**
+     * forces the journal to disk every {syncMillis} and deletes segments nothing needs any more
+     */
+    private void syncForever() {
+        while (true) {
+            try {
+                Thread.sleep(syncMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                sync();
+            } catch (IOException | RuntimeException e) {
+                events.displayMessage("Journal sync failed: " + e + "\n");
+            }
+        }
+    }
+
+    /**
+     * forces whatever has been written since the last sync and deletes segments whose games have all ended
+     * only completed records count, a record still being copied in is forced by a later sync once it is finished
+     * @throws IOException if a segment can not be deleted
+     */
+    private void sync() throws IOException {
+        Segment full;
+        while ((full = pollFilled()) != null) {
+            finishing.add(full);
+        }
+        for (int i = 0; i < finishing.size(); i++) {
+            full = finishing.get(i);
+            long done = force(full);
+            if (done == full.end.get() - SEGMENT_HEADER) { // every record that fit is written and forced
+                retired.add(full);
+                finishing.remove(i--);
+            }
+        }
+        Segment segment = current;
+        if (segment != null) {
+            force(segment);
+        }
+        long needed = segment == null ? Long.MAX_VALUE : segment.index;
+        for (long index : openGames.values()) {
+            needed = Math.min(needed, index);
+        }
+        while (!retired.isEmpty() && retired.peek().index < needed) {
+            Files.deleteIfExists(retired.poll().file);
+        }
+    }
+
+    /**
+     * forces a segment if more records were completed in it since it was last forced
+     * @param segment the segment
+     * @return how many bytes of records it has completed, all of them forced
+     */
+    private static long force(Segment segment) {
+        long done = segment.completed.sum();
+        if (done != segment.forced) {
+            segment.buffer.force();
+            segment.forced = done;
+        }
+        return done;
+    }
+
+    /**
+     * takes the next segment that filled up since the last sync
+     * @return the segment, null if there is none
+     */
+    private synchronized Segment pollFilled() {
+        return filled.poll();
+    }
+
+    /**
+     * makes and maps a new segment file
+     * @param index the number of the segment
+     * @return the segment, ready to write
+     * @throws IOException if the file can not be made or mapped
+     */
+    private Segment open(long index) throws IOException {
+        Path file = directory.resolve(String.format("journal-%010d.log", index));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+            buffer.putInt(0, MAGIC); // the mapping stays valid once the channel is closed
+            return new Segment(index, file, buffer);
+        }
+    }
+
+    /**
+     * finds the segment files already in the folder
+     * @return the segments, oldest first
+     * @throws IOException if the folder can not be listed
+     */
+    private List<Segment> existingSegments() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(new Segment(Long.parseLong(name.substring(8, name.length() - 4)), file, null));
+                } catch (NumberFormatException e) {
+                    events.displayMessage("Skipping " + file + ", it is not a journal segment\n");
+                }
+            }
+        }
+        segments.sort((a, b) -> Long.compare(a.index, b.index));
+        return segments;
+    }
+
+    /**
+     * reads the records of one segment into the games in progress
+     * @param file the segment file
+     * @param games the games in progress so far, by id
+     * @throws IOException if the file can not be read
+     */
+    private void read(Path file, Map<Long, Game> games) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.limit() < SEGMENT_HEADER || in.getInt(0) != MAGIC) {
+            events.displayMessage("Skipping " + file + ", it is not a journal segment\n");
+            return;
+        }
+        CRC32C crc = new CRC32C();
+        int at = SEGMENT_HEADER;
+        int skipped = 0;
+        boolean gap = false;
+        while (at <= in.limit() - RECORD_HEADER) {
+            int length = in.getInt(at);
+            if (length == 0) { // space reserved by a writer that never got to it, or nothing more was written
+                gap = true;
+                at += ALIGNMENT;
+                continue;
+            }
+            if (gap) {
+                skipped++;
+                gap = false;
+            }
+            if (length < 0 || length > MAX_BODY || length > in.limit() - at - RECORD_HEADER) {
+                at += ALIGNMENT; // the length itself was torn, look for the next record
+                continue;
+            }
+            ByteBuffer body = in.duplicate();
+            body.position(at + RECORD_HEADER).limit(at + RECORD_HEADER + length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() == in.getInt(at + 4)) {
+                apply(body.slice(), games);
+            } else {
+                skipped++;
+            }
+            at += (RECORD_HEADER + length + ALIGNMENT - 1) & -ALIGNMENT;
+        }
+        if (skipped > 0) {
+            events.displayMessage("Skipped " + skipped + " unfinished record(s) in " + file + "\n");
+        }
+    }
+
+    /**
+     * applies one record to the games in progress
+     * @param body the record body, starting with its type
+     * @param games the games in progress so far, by id
+     */
+    private void apply(ByteBuffer body, Map<Long, Game> games) {
+        byte type = body.get();
+        long gameId = body.getLong();
+        lastGameId = Math.max(lastGameId, gameId);
+        Game game = games.get(gameId);
+        switch (type) {
+            case GAME_STATE:
+                String room = readString(body);
+                game = new Game(gameId, room, body.getLong(), body.getInt(), 0);
+                int seats = body.getInt();
+                for (int i = 0; i < seats; i++) {
+                    long sessionId = body.getLong();
+                    game.seats.put(sessionId, new Seat(sessionId, readString(body), readString(body), body.getDouble()));
+                    lastSessionId = Math.max(lastSessionId, sessionId);
+                }
+                games.put(gameId, game);
+                break;
+            case QUESTION_SENT:
+                if (game != null) {
+                    game.questionsSent = body.getInt();
+                    game.roundId = body.getInt();
+                }
+                break;
+            case ANSWERED:
+                Seat answering = game == null ? null : game.seats.get(body.getLong());
+                if (answering != null) {
+                    answering.answeredRound = body.getInt();
+                    answering.score = body.getDouble();
+                }
+                break;
+            case LEFT:
+                if (game != null) {
+                    game.seats.remove(body.getLong());
+                }
+                break;
+            case GAME_ENDED:
+                games.remove(gameId);
+                break;
+            default:
+                events.displayMessage("Unknown journal record type " + type + "\n");
+                break;
+        }
+    }
+
+    /**
+     * reads a string written as its length then its UTF-8 bytes
+     * @param body the buffer to read from
+     * @return the string
+     */
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort() & 0xFFFF];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,566 @@
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * one game with its own players, questions and round state
+ * each room has its own lock, so rooms never wait on each other
+ * answers do not take the lock, they count down the round's {@link RoundBarrier} and only the answer
+ * that completes the round locks the room to move the game on
+ * a round also ends when its deadline on the server's shared {@link HashedWheelTimer} passes, so a player who
+ * walks away can not hold up the game
+ * a player whose connection drops keeps their seat and score while suspended, rounds stop waiting on them until
+ * they resume
+ * every game is written to the server's {@link GameJournal} as it goes, so a restarted server can restore it
+ * @author Austin Letsch
+ */
+public class GameRoom {
+
+    /**
+     * how many questions are asked in one game
+     */
+    static final int QUESTIONS_PER_GAME = 5;
+
+    /**
+     * the name players use to join this room
+     */
+    private final String name;
+
+    /**
+     * the server this room belongs to
+     */
+    private final GameServer server;
+
+    /**
+     * guards all of the state below
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * all of the players in this room
+     */
+    private final PlayerRegistry players = new PlayerRegistry();
+
+    /**
+     * checks if any player has started the game yet
+     */
+    private boolean gameStarted = false;
+
+    /**
+     * set once the last player leaves, a closed room can not be joined again
+     */
+    private boolean closed = false;
+
+    /**
+     * the id of the current or last game, the journal knows the game by it
+     */
+    private long gameId;
+
+    /**
+     * the number of questions that have been sent to the players so far
+     */
+    private int numberOfQuestionsSent = 0;
+
+    /**
+     * the round being answered right now, null when no game is running
+     */
+    private volatile RoundBarrier currentRound;
+
+    /**
+     * the current round's question, encoded, sent again to players who resume during the round
+     */
+    private ByteBuffer currentQuestion;
+
+    /**
+     * ends the current round when time runs out, null when rounds have no time limit
+     */
+    private HashedWheelTimer.Timeout roundDeadline;
+
+    /**
+     * the standings of the current game
+     */
+    private volatile Leaderboard leaderboard = new Leaderboard();
+
+    /**
+     * how many players are listed in the standings sent after each question
+     */
+    private static final int STANDINGS_SHOWN = 3;
+
+    /**
+     * how many players are listed in the score board sent at the end of a game, everyone else is told their own place,
+     * a list of every player would not fit in one frame once a room has a couple of thousand
+     */
+    static final int SCORE_BOARD_SHOWN = 10;
+
+    /**
+     * the question data set for the current game
+     */
+    private DataSet questions;
+
+    /**
+     * constructor for a room
+     * @param name the name of the room
+     * @param server the server the room belongs to
+     */
+    public GameRoom(String name, GameServer server) {
+        this.name = name;
+        this.server = server;
+    }
+
+    /**
+     * getter for the name of this room
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * getter for weather a game is being played in this room
+     * @return true if the game has started
+     */
+    public boolean isGameStarted() {
+        lock.lock();
+        try {
+            return gameStarted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * getter for the standings of the current or last game
+     * @return the leaderboard
+     */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * adds a player to this room
+     * @param player the player joining
+     * @return true if they joined, false if the game has already started or the room is closed
+     */
+    public boolean join(Player player) {
+        lock.lock();
+        try {
+            if (gameStarted || closed) {
+                return false;
+            }
+            players.add(player);
+            player.setRoom(this);
+            server.displayMessage(name + ": player " + player.getSessionId() + " connected\n");
+            sendDataToAll(players.size() + " player(s) connected, waiting for a player to start game\n");
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * removes a player that has left or disconnected
+     * closes the room if it is now empty, otherwise makes sure the round is not left waiting on them
+     * @param player the player leaving
+     */
+    public void leave(Player player) {
+        lock.lock();
+        try {
+            if (!players.remove(player)) {
+                return;
+            }
+            if (players.size() == 0) {
+                closed = true;
+                currentRound = null;
+                currentQuestion = null;
+                cancelDeadline();
+                if (gameStarted) { // abandoned part way through
+                    gameStarted = false;
+                    server.getMetrics().gameEnded();
+                    server.getJournal().gameEnded(gameId);
+                }
+                server.removeRoom(this);
+                return;
+            }
+            if (gameStarted) {
+                server.getJournal().left(gameId, player.getSessionId());
+            }
+            leaderboard.remove(player);
+            RoundBarrier round = currentRound;
+            if (round != null && player.markAnswered(round.getRoundId()) && round.arrive()) { // nobody waits on a player who left
+                nextRound(round);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * stops the round waiting on a player whose connection dropped, they keep their seat and score
+     * @param player the suspended player
+     */
+    public void suspend(Player player) {
+        lock.lock();
+        try {
+            RoundBarrier round = currentRound;
+            if (round == null || !player.isSuspended() || !players.contains(player) // already resumed
+                    || !player.markAnswered(round.getRoundId())) {
+                return;
+            }
+            player.letOff(round.getRoundId());
+            if (round.arrive()) {
+                nextRound(round);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * brings back a suspended player, sending them the question they missed if the round is still going
+     * @param player the player, already on their new connection
+     */
+    public void resume(Player player) {
+        lock.lock();
+        try {
+            if (!players.contains(player)) {
+                return;
+            }
+            RoundBarrier round = currentRound;
+            if (round != null) {
+                int roundId = round.getRoundId();
+                if (player.wasLetOff(roundId)) {
+                    if (round.rejoin()) { // the round waits for them again
+                        player.unmarkAnswered(roundId);
+                        player.sendData(currentQuestion);
+                    }
+                } else if (!player.hasAnswered(roundId)) {
+                    player.sendData(currentQuestion);
+                }
+            }
+            player.sendMessage("Welcome back, your score is " + player.getScore() + "\n");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * starts a game in this room, does nothing if one is already running
+     */
+    public void startGame() {
+        lock.lock();
+        try {
+            if (gameStarted) {
+                return;
+            }
+            gameStarted = true;
+            server.getMetrics().gameStarted();
+            numberOfQuestionsSent = 0;
+            questions = server.newDataSet();
+            Leaderboard standings = new Leaderboard();
+            for (Player player : players.snapshot()) {
+                player.setScore(0.0);
+                player.getAnswerTimes().reset();
+                player.getTally().reset();
+                standings.update(player, 0.0);
+            }
+            leaderboard = standings;
+            gameId = server.nextGameId();
+            server.getJournal().gameState(gameId, name, questions.getSeed(), 0, players.snapshot());
+            server.displayMessage(name + ": game started with " + players.size() + " player(s), question seed "
+                    + questions.getSeed() + "\n");
+            sendDataToAll("Game Started\n");
+            if (server.getRoundSeconds() > 0) {
+                sendDataToAll("You have " + server.getRoundSeconds() + " second(s) to answer each question\n");
+            }
+            questions.getNewRandom();
+            sendQuestion(questions.getRandomQuestionData(), questions.getRandomScorer());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * carries on a game the journal recorded before the server restarted, asking again the question that was
+     * being answered, the players are all suspended until they resume their sessions
+     * @param restoredId the id the journal knows the game by
+     * @param restoredQuestions the game's questions, drawn from its seed with nothing drawn yet
+     * @param questionsSent how many questions had been sent, the last one is asked again
+     * @param seated every player still in the game, with their scores
+     * @param answered the players who had already answered the last question
+     */
+    public void restore(long restoredId, DataSet restoredQuestions, int questionsSent, Player[] seated, List<Player> answered) {
+        lock.lock();
+        try {
+            gameStarted = true;
+            server.getMetrics().gameStarted();
+            gameId = restoredId;
+            questions = restoredQuestions;
+            Leaderboard standings = new Leaderboard();
+            for (Player player : seated) {
+                players.add(player);
+                player.setRoom(this);
+                standings.update(player, player.getScore());
+            }
+            leaderboard = standings;
+            for (int i = 1; i < questionsSent; i++) { // the same seed draws the same questions again
+                questions.getNewRandom();
+            }
+            numberOfQuestionsSent = questionsSent - 1;
+            server.getJournal().gameState(gameId, name, questions.getSeed(), numberOfQuestionsSent, seated);
+            server.displayMessage(name + ": restored game " + gameId + " with " + seated.length
+                    + " player(s) at question " + questionsSent + "\n");
+            questions.getNewRandom();
+            sendQuestion(questions.getRandomQuestionData(), questions.getRandomScorer());
+            RoundBarrier round = currentRound;
+            for (Player player : answered) { // their points for it are already in their score
+                if (player.markAnswered(round.getRoundId())) {
+                    server.getJournal().answered(gameId, player.getSessionId(), round.getRoundId(), player.getScore());
+                    if (round.arrive()) {
+                        nextRound(round);
+                        return;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * scores and records a players answer to the current question, without taking the room lock
+     * the answer time runs from the question being written to the player's socket to the answer being read off it,
+     * both stamped by the transport, so time spent in queues or waiting on a busy server is never held against them
+     * an answer names the round it is for, one for an earlier question that arrives after the game moved on is dropped
+     * @param player the player answering
+     * @param roundId the round the answer is for, as sent with the question
+     * @param response the raw answer the player sent
+     * @param receivedAt when the answer was read, from {@link System#nanoTime()}
+     */
+    public void answer(Player player, int roundId, String[] response, long receivedAt) {
+        RoundBarrier round = currentRound;
+        if (round == null || round.getRoundId() != roundId || !player.markAnswered(roundId)) { // only counts the first answer to each question
+            return;
+        }
+        int left = round.claim();
+        if (left < 0) { // time ran out before it arrived
+            return;
+        }
+        long sentAt = Math.max(player.getQuestionSentAt(), round.getStartedAt()); // an older stamp is the last question's
+        long latency = Math.max(0, receivedAt - sentAt);
+        player.getAnswerTimes().record(latency);
+        server.getMetrics().answerScored(latency);
+        double points = round.getScorer().score(response);
+        player.getTally().record(points >= 1); // only full points count as right, before any weighting for speed
+        double score = player.getScore() + points;
+        if (server.isSpeedScoring()) {
+            int seconds = server.getRoundSeconds();
+            points = speedWeighted(points, latency, TimeUnit.SECONDS.toNanos(seconds > 0 ? seconds : GameServer.DEFAULT_ROUND_SECONDS));
+            score = Math.round((player.getScore() + points) * 1000) / 1000.0; // keeps sums of thousandths from drifting
+        }
+        player.setScore(score); // only this player's own thread changes their score
+        server.getJournal().answered(gameId, player.getSessionId(), round.getRoundId(), score);
+        Leaderboard standings = leaderboard;
+        standings.update(player, score);
+        if (!players.contains(player)) { // left while answering, leave() removes them after taking them out of players
+            standings.remove(player);
+        }
+        player.sendData(Protocol.share(Protocol.encodeDouble(Protocol.SCORE, points)));
+        if (left == 0) {
+            nextRound(round);
+        }
+    }
+
+    /**
+     * weights the points for an answer by how fast it came, an instant answer keeps all of them and one at the
+     * end of the window keeps half, anything slower than the window also keeps half
+     * @param points the points the answer is worth
+     * @param latency how long the answer took in nanoseconds
+     * @param window the time limit in nanoseconds
+     * @return the weighted points, to the nearest thousandth
+     */
+    static double speedWeighted(double points, long latency, long window) {
+        double late = Math.min(1.0, (double) latency / window);
+        return Math.round(points * (1.0 - late / 2) * 1000) / 1000.0;
+    }
+
+    /**
+     * moves on from a completed round, sending another question if 5 haven't already been sent
+     * @param finished the round that completed
+     */
+    private void nextRound(RoundBarrier finished) {
+        lock.lock();
+        try {
+            if (currentRound != finished) { // the game already moved on or ended
+                return;
+            }
+            server.getMetrics().roundFinished(System.nanoTime() - finished.getStartedAt());
+            cancelDeadline();
+            if (numberOfQuestionsSent < QUESTIONS_PER_GAME) {
+                sendStandings();
+                questions.getNewRandom();
+                sendQuestion(questions.getRandomQuestionData(), questions.getRandomScorer());
+            } else {
+                currentRound = null;
+                currentQuestion = null;
+                gameStarted = false;
+                server.getJournal().gameEnded(gameId);
+                endGame();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * starts a new round and sends its question to all players, must hold the lock
+     * suspended players are let off the round up front, unless nobody is connected, then it waits for whoever resumes
+     * @param question the question to send
+     * @param scorer scores answers to the question
+     */
+    private void sendQuestion(QuestionData question, AnswerScorer scorer) {
+        Player[] roster = players.snapshot();
+        int roundId = server.nextRoundId();
+        int waitingOn = 0;
+        for (Player player : roster) {
+            if (!player.isSuspended()) {
+                waitingOn++;
+            }
+        }
+        if (waitingOn == 0) {
+            waitingOn = roster.length;
+        } else {
+            for (Player player : roster) {
+                if (player.isSuspended() && player.markAnswered(roundId)) {
+                    player.letOff(roundId);
+                }
+            }
+        }
+        RoundBarrier round = new RoundBarrier(roundId, waitingOn, scorer);
+        currentRound = round; // ready before anyone can answer
+        int seconds = server.getRoundSeconds();
+        if (seconds > 0) {
+            roundDeadline = server.getTimer().schedule(() -> server.getTimeoutWork().execute(() -> timeUp(round)), seconds,
+                    TimeUnit.SECONDS); // the next round encodes, reads media and writes the journal, too much for the timer thread
+        }
+        QuestionData sent = server.getMedia().attach(question); // clients fetch the media by its hash if they need it
+        ByteBuffer frame = Protocol.share(Protocol.encodeQuestion(roundId, sent)); // encoded once for the whole room
+        currentQuestion = frame;
+        for (Player player : roster) {
+            player.sendData(frame);
+        }
+        numberOfQuestionsSent++;
+        server.getJournal().questionSent(gameId, numberOfQuestionsSent, roundId);
+    }
+
+    /**
+     * ends a round whose time ran out, runs on {@link GameServer#getTimeoutWork()}
+     * players who had not answered get no points for the question
+     * @param round the round whose deadline passed
+     */
+    private void timeUp(RoundBarrier round) {
+        if (!round.forceComplete()) { // everyone answered just in time
+            return;
+        }
+        server.getMetrics().roundTimedOut();
+        for (Player player : players.snapshot()) {
+            if (!player.hasAnswered(round.getRoundId())) {
+                player.sendMessage("Time is up, no points for that question\n");
+            }
+        }
+        nextRound(round);
+    }
+
+    /**
+     * cancels the current round's deadline if it has one, must hold the lock
+     */
+    private void cancelDeadline() {
+        if (roundDeadline != null) {
+            roundDeadline.cancel();
+            roundDeadline = null;
+        }
+    }
+
+    /**
+     * sends everyone the top few players and each player their own place, must hold the lock
+     */
+    private void sendStandings() {
+        Leaderboard standings = leaderboard;
+        String top = "Standings after question " + numberOfQuestionsSent + ":\n";
+        List<Player> leaders = standings.top(STANDINGS_SHOWN);
+        for (int i = 0; i < leaders.size(); i++) {
+            top = top + (i + 1) + ". " + displayName(leaders.get(i)) + " " + leaders.get(i).getScore() + "\n";
+        }
+        sendDataToAll(top);
+        int total = standings.size();
+        for (Player player : players.snapshot()) {
+            player.sendMessage("You are ranked " + standings.rank(player) + " of " + total + "\n");
+        }
+    }
+
+    /**
+     * gets the name to show for a player
+     * @param player the player
+     * @return their name, or player and their session id if they have not given one
+     */
+    private static String displayName(Player player) {
+        return player.getPlayerName().equals("") ? "player " + player.getSessionId() : player.getPlayerName();
+    }
+
+    /**
+     * sends a message to all players in this room
+     * package private so the benchmarks in bench can measure the fan out
+     * @param send the message to send
+     */
+    void sendDataToAll(String send) {
+        ByteBuffer frame = Protocol.share(Protocol.encodeText(Protocol.TEXT, send)); // encoded once for the whole room
+        for (Player player : players.snapshot()) {
+            player.sendData(frame);
+        }
+    }
+
+    /**
+     * ends the game and sends a score board of the top players to each player, straight from the leaderboard,
+     * along with their own final place
+     * each player's game is queued to be added to their lifetime stats, which they are sent once it is written
+     * the room stays open so the same players can start another game
+     */
+    private void endGame() {
+        server.getMetrics().gameEnded();
+        Leaderboard standings = leaderboard;
+        sendDataToAll(scoreBoard(standings));
+        int total = standings.size();
+        PlayerStatsStore stats = server.getStats();
+        for (Player player : players.snapshot()) {
+            player.sendMessage("You finished " + standings.rank(player) + " of " + total + " with a score of " + player.getScore() + "\n");
+            AnswerTimes times = player.getAnswerTimes();
+            if (times.getCount() > 0) {
+                player.sendMessage("Your answer times: " + times.describe() + "\n");
+            }
+            stats.recordGameLater(player.getPlayerName(), player.getScore(), player.getTally()).whenComplete((lifetime, e) -> {
+                if (e != null) {
+                    server.displayMessage(name + ": could not save the stats of " + displayName(player) + ": " + e.getMessage() + "\n");
+                } else if (lifetime != null) {
+                    player.sendMessage("Your lifetime stats: " + lifetime + "\n");
+                }
+            });
+        }
+        server.displayMessage(name + ": game over\n");
+    }
+
+    /**
+     * writes the score board sent at the end of a game, the top {@value #SCORE_BOARD_SHOWN} players from first on
+     * @param standings the leaderboard of the game
+     * @return the score board
+     */
+    static String scoreBoard(Leaderboard standings) {
+        List<Player> ranked = standings.top(SCORE_BOARD_SHOWN);
+        StringBuilder scoreBoard = new StringBuilder("The top players are:\n");
+        for (int i = 0; i < ranked.size(); i++) {
+            int num = i + 1;
+            scoreBoard.append(num).append(". ").append(displayName(ranked.get(i))).append(" had a score of ")
+                    .append(ranked.get(i).getScore()).append("\n");
+        }
+        return scoreBoard.toString();
+    }
+}
@@ -0,0 +1,679 @@
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * the game side of the server, runs without any Swing so it can be used headless
+ * hosts any number of {@link GameRoom}s at once, new players go to the open lobby unless they join a named room
+ * @author Austin Letsch
+ */
+public class GameServer {
+
+    /**
+     * the port players connect to
+     */
+    public static final int PORT = 23717;
+
+    /**
+     * how long players have to answer each question unless the server is told otherwise
+     */
+    public static final int DEFAULT_ROUND_SECONDS = 30;
+
+    /**
+     * how long a dropped player has to resume their session unless the server is told otherwise
+     */
+    public static final int DEFAULT_RESUME_SECONDS = 30;
+
+    /**
+     * how often lifetime stats are forced to disk, in milliseconds
+     */
+    private static final long STATS_SYNC_MILLIS = 1000;
+
+    /**
+     * how long a new connection may stay quiet before it is put in the open lobby, in milliseconds, long enough for
+     * a reconnecting client's RESUME to arrive first
+     */
+    private static final long PLACE_GRACE_MILLIS = 500;
+
+    /**
+     * how many random bytes go in a session token
+     */
+    private static final int TOKEN_BYTES = 16;
+
+    /**
+     * where messages about the server are reported
+     */
+    private final ServerEventSink events;
+
+    /**
+     * every room that has players in it, by name
+     */
+    private final ConcurrentHashMap<String, GameRoom> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * the room new players are put in, replaced with a fresh one once its game starts
+     */
+    private final AtomicReference<GameRoom> openLobby = new AtomicReference<>();
+
+    /**
+     * every connected player, by session id
+     */
+    private final PlayerRegistry players = new PlayerRegistry();
+
+    /**
+     * every player whose session can still be resumed, connected or suspended, by token
+     */
+    private final ConcurrentHashMap<String, Player> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * makes session tokens nobody can guess
+     */
+    private final SecureRandom tokens = new SecureRandom();
+
+    /**
+     * the numbers shown over JMX
+     */
+    private final ServerMetrics metrics = new ServerMetrics(players);
+
+    /**
+     * hands out session ids
+     */
+    private final AtomicLong sessionIds = new AtomicLong();
+
+    /**
+     * hands out round ids, shared by every room so a player's answer to an old round never counts for a new one
+     */
+    private final AtomicInteger roundIds = new AtomicInteger();
+
+    /**
+     * hands out game ids, the journal knows each game by one
+     */
+    private final AtomicLong gameIds = new AtomicLong();
+
+    /**
+     * counts lobbies so each one gets its own name
+     */
+    private final AtomicInteger lobbyCount = new AtomicInteger();
+
+    /**
+     * accepts players and moves their frames
+     */
+    private final Transport transport;
+
+    /**
+     * runs every room's round deadlines and every session's time to resume on one thread, ticking 10 times a second
+     */
+    private final HashedWheelTimer timer;
+
+    /**
+     * does the work timeouts start, ending rounds and forgetting expired sessions, so the timer thread only ticks
+     */
+    private final ExecutorService timeoutWork = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "timeout-work");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * how long players have to answer each question in seconds, 0 to wait for everyone however long they take
+     */
+    private volatile int roundSeconds = DEFAULT_ROUND_SECONDS;
+
+    /**
+     * whether faster answers are worth more, see {@link GameRoom#speedWeighted(double, long, long)}
+     */
+    private volatile boolean speedScoring;
+
+    /**
+     * how long a dropped player has to resume their session in seconds, 0 to forget them as soon as they drop
+     */
+    private volatile int resumeSeconds = DEFAULT_RESUME_SECONDS;
+
+    /**
+     * records every game as it goes so it can be restored after a restart, records nothing unless one is opened
+     */
+    private volatile GameJournal journal = new GameJournal();
+
+    /**
+     * every player's lifetime stats by name, keeps nothing unless a store is opened
+     */
+    private volatile PlayerStatsStore stats = new PlayerStatsStore();
+
+    /**
+     * the media files questions show, sent to players who do not have them yet
+     */
+    private volatile MediaStore media;
+
+    /**
+     * the question bank every room draws from, the built in questions unless a bank is loaded
+     */
+    private volatile DataSet questions;
+
+    /**
+     * whether every game uses {questionSeed} instead of a seed of its own
+     */
+    private volatile boolean fixedSeed;
+
+    /**
+     * the seed every game draws its questions from when {fixedSeed} is set
+     */
+    private volatile long questionSeed;
+
+    /**
+     * constructor for the game server using blocking sockets
+     * @param events where to report messages about the server
+     */
+    public GameServer(ServerEventSink events){
+        this(events, new BlockingTransport(PORT));
+    }
+
+    /**
+     * constructor for the game server
+     * @param events where to report messages about the server
+     * @param transport accepts players and moves their frames
+     */
+    public GameServer(ServerEventSink events, Transport transport){
+        this.events = events;
+        this.transport = transport;
+        this.timer = new HashedWheelTimer(100, TimeUnit.MILLISECONDS, 512, events);
+
+        questions = loadDefaultQuestions();
+        media = new MediaStore(null, events);
+        openLobby.set(createLobby());
+    }
+
+    /**
+     * run the server, accepts players for as long as the server is up
+     * games run in their own rooms, so the server keeps accepting players while others play
+     */
+    public void runServer(){
+        try {
+            metrics.register();
+        } catch (JMException e) {
+            displayMessage("Metrics are not shown over JMX: " + e.getMessage() + "\n");
+        }
+        transport.serve(this);
+    }
+
+    /**
+     * makes the player for a new connection, they are put in the open lobby on their first frame unless it is
+     * a RESUME, or after {@link #PLACE_GRACE_MILLIS} for clients that wait for the lobby before sending anything
+     * @param connection the new connection
+     * @return the player, for the transport to hand frames to
+     */
+    public Player connect(Connection connection){
+        Player player = new Player(this, connection, sessionIds.incrementAndGet(), newToken());
+        metrics.connectionAccepted();
+        players.add(player);
+        player.startWaiting();
+        timer.schedule(() -> place(player), PLACE_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        return player;
+    }
+
+    /**
+     * gives a new player their session token and puts them in the open lobby, unless they were placed already
+     * @param player the player
+     */
+    public void place(Player player){
+        if (player.stopWaiting()) {
+            seat(player);
+        }
+    }
+
+    /**
+     * gives a player their session token and puts them in the open lobby
+     * @param player the player, no longer waiting for their first frame
+     */
+    private void seat(Player player){
+        sessions.put(player.getToken(), player);
+        player.sendData(Protocol.share(Protocol.encodeSession(player.getToken(), resumeSeconds)));
+        joinOpenLobby(player);
+    }
+
+    /**
+     * holds the seat of a player whose connection has closed, so they can resume it for a while
+     * the room stops waiting on them straight away, see {@link GameRoom#suspend(Player)}
+     * @param player the player
+     * @param closed the connection that closed
+     */
+    public void suspend(Player player, Connection closed){
+        int seconds = resumeSeconds;
+        if (player.stopWaiting() || seconds == 0 || player.getToken() == null) { // never seated, nothing to keep
+            if (player.markGone(closed, false)) {
+                disconnect(player);
+            }
+            return;
+        }
+        HashedWheelTimer.Timeout expiry = timer.schedule(() -> timeoutWork.execute(() -> expire(player, closed)), seconds, TimeUnit.SECONDS);
+        if (!player.suspend(closed, expiry)) { // already resumed on another connection
+            return;
+        }
+        players.remove(player);
+        GameRoom room = player.getRoom();
+        if (room != null) {
+            room.suspend(player);
+        }
+    }
+
+    /**
+     * forgets a suspended player whose time to resume has run out, runs on {@link #getTimeoutWork()}
+     * @param player the player
+     * @param closed the connection they were suspended from
+     */
+    private void expire(Player player, Connection closed){
+        if (player.markGone(closed, true)) {
+            displayMessage("player " + player.getSessionId() + " did not resume in time\n");
+            disconnect(player);
+        }
+    }
+
+    /**
+     * moves the seat of an earlier session onto the connection of a player who just connected
+     * the new player is forgotten, the earlier one keeps their room, score and the round in progress
+     * when the RESUME is the first frame the new player was never seated, so nobody hears of them
+     * @param fresh the player made for the new connection
+     * @param token the token of the session to resume
+     */
+    public void resume(Player fresh, String token){
+        boolean leading = fresh.stopWaiting();
+        Player seat = sessions.get(token);
+        if (seat == null || seat == fresh || !seat.resume(fresh.getConnection())) {
+            fresh.sendMessage("Could not resume that session, playing as a new player\n");
+            if (leading) {
+                seat(fresh);
+            }
+            return;
+        }
+        disconnect(fresh);
+        fresh.getConnection().setPlayer(seat); // every later frame on this connection is the seat's
+        players.add(seat);
+        seat.sendData(Protocol.share(Protocol.encodeSession(token, resumeSeconds)));
+        displayMessage("player " + seat.getSessionId() + " resumed their session\n");
+        GameRoom room = seat.getRoom();
+        if (room != null) {
+            room.resume(seat);
+        }
+    }
+
+    /**
+     * forgets a player whose connection has closed for good, along with their session
+     * @param player the player
+     */
+    public void disconnect(Player player){
+        players.remove(player);
+        if (player.getToken() != null) {
+            sessions.remove(player.getToken(), player);
+        }
+        GameRoom room = player.getRoom();
+        if (room != null) {
+            room.leave(player); // this player is no longer connected, so have to remove it from the room
+        }
+    }
+
+    /**
+     * looks up a connected player
+     * @param sessionId the player's session id
+     * @return the player, or null if nobody with that id is connected
+     */
+    public Player getPlayer(long sessionId){
+        return players.get(sessionId);
+    }
+
+    /**
+     * getter for how many players are connected
+     * @return the number of players
+     */
+    public int getPlayerCount(){
+        return players.size();
+    }
+
+    /**
+     * getter for the numbers the server keeps about itself
+     * @return the metrics
+     */
+    public ServerMetrics getMetrics(){
+        return metrics;
+    }
+
+    /**
+     * reports a message to the event sink
+     * @param messageToDisplay  the message to display
+     */
+    public void displayMessage(final String messageToDisplay) {
+        events.displayMessage(messageToDisplay);
+    }
+
+    /**
+     * puts a player in the open lobby, making a new lobby if the current one has started its game
+     * @param player the player to place
+     */
+    public void joinOpenLobby(Player player){
+        while (true) {
+            GameRoom lobby = openLobby.get();
+            if (lobby.join(player)) {
+                return;
+            }
+            GameRoom fresh = createLobby();
+            if (!openLobby.compareAndSet(lobby, fresh)) { // another thread already replaced it
+                rooms.remove(fresh.getName(), fresh);
+            }
+        }
+    }
+
+    /**
+     * moves a player into a named room, making the room if nobody is in it yet
+     * players can only change rooms while they are not in a game
+     * @param player the player moving
+     * @param name the name of the room
+     */
+    public void joinRoom(Player player, String name){
+        GameRoom current = player.getRoom();
+        if (current != null) {
+            if (current.getName().equals(name)) {
+                return;
+            }
+            if (current.isGameStarted()) {
+                player.sendMessage("You can't change rooms during a game\n");
+                return;
+            }
+            current.leave(player);
+        }
+        while (true) {
+            GameRoom room = rooms.computeIfAbsent(name, key -> new GameRoom(key, this));
+            if (room.join(player)) {
+                player.sendMessage("Joined room " + name + "\n");
+                return;
+            }
+            if (room.isGameStarted()) { // closed rooms are retried, the next computeIfAbsent makes a new one
+                player.sendMessage("Room " + name + " already has a game in progress\n");
+                player.setRoom(null);
+                joinOpenLobby(player);
+                return;
+            }
+            rooms.remove(name, room);
+        }
+    }
+
+    /**
+     * forgets a room once it is empty
+     * @param room the room to remove
+     */
+    public void removeRoom(GameRoom room){
+        rooms.remove(room.getName(), room); // a closed open lobby is replaced the next time someone joins it
+    }
+
+    /**
+     * gets an id for a new game
+     * @return an id bigger than any handed out before, or found in the journal
+     */
+    public long nextGameId(){
+        return gameIds.incrementAndGet();
+    }
+
+    /**
+     * starts journaling games to a folder, first restoring any games that were in progress when it was last written
+     * restored players are suspended and get the usual time to resume their sessions, so the server must start
+     * with the same questions as before or the restored games go on with different ones
+     * call before the server runs
+     * @param directory the folder to keep the journal in
+     * @param syncMillis how often the journal is forced to disk, in milliseconds
+     * @throws IOException if the journal can not be read or made
+     */
+    public void openJournal(Path directory, long syncMillis) throws IOException {
+        GameJournal opened = new GameJournal(directory, syncMillis, events);
+        sessionIds.accumulateAndGet(opened.getLastSessionId(), Math::max);
+        gameIds.accumulateAndGet(opened.getLastGameId(), Math::max);
+        journal = opened;
+        List<GameJournal.Game> games = opened.getRecovered();
+        if (!games.isEmpty() && resumeSeconds == 0) {
+            displayMessage("Not restoring " + games.size() + " game(s), sessions can not be resumed\n");
+        } else {
+            long started = System.nanoTime();
+            for (GameJournal.Game game : games) {
+                restoreGame(game);
+            }
+            if (!games.isEmpty()) {
+                displayMessage("Restored " + games.size() + " game(s) from the journal in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms\n");
+            }
+        }
+        opened.start();
+    }
+
+    /**
+     * rebuilds one game from the journal with every player suspended, waiting for them to resume
+     * @param game the game as the journal last recorded it
+     */
+    private void restoreGame(GameJournal.Game game){
+        if (game.getSeats().isEmpty()) {
+            return;
+        }
+        GameRoom room = new GameRoom(game.getRoom(), this);
+        if (rooms.putIfAbsent(room.getName(), room) != null) {
+            displayMessage("Not restoring game " + game.getGameId() + ", room " + game.getRoom() + " is taken\n");
+            return;
+        }
+        List<Player> seated = new ArrayList<>();
+        List<Player> answered = new ArrayList<>();
+        for (GameJournal.Seat seat : game.getSeats()) {
+            Player player = new Player(this, new DetachedConnection(), seat.getSessionId(), seat.getToken());
+            player.setPlayerName(seat.getName());
+            player.setScore(seat.getScore());
+            sessions.put(player.getToken(), player);
+            suspend(player, player.getConnection()); // not in a room yet, so this only starts their time to resume
+            seated.add(player);
+            if (game.getRoundId() != 0 && seat.getAnsweredRound() == game.getRoundId()) {
+                answered.add(player);
+            }
+        }
+        room.restore(game.getGameId(), new DataSet(questions, game.getSeed()), Math.max(1, game.getQuestionsSent()),
+                seated.toArray(new Player[0]), answered);
+    }
+
+    /**
+     * keeps every player's lifetime stats in a folder, adding to any already there
+     * call before the server runs
+     * @param directory the folder to keep the stats in
+     * @throws IOException if the stats can not be read or made
+     */
+    public void openStats(Path directory) throws IOException {
+        PlayerStatsStore opened = new PlayerStatsStore(directory);
+        displayMessage("Lifetime stats for " + opened.size() + " player(s) in " + directory + "\n");
+        opened.start(STATS_SYNC_MILLIS);
+        stats = opened;
+    }
+
+    /**
+     * getter for every player's lifetime stats
+     * @return the store, one that keeps nothing unless {@link #openStats(Path)} was called
+     */
+    public PlayerStatsStore getStats(){
+        return stats;
+    }
+
+    /**
+     * getter for the journal games are recorded in
+     * @return the journal, one that records nothing unless {@link #openJournal(Path, long)} was called
+     */
+    public GameJournal getJournal(){
+        return journal;
+    }
+
+    /**
+     * gets an id for a new round
+     * @return an id bigger than any handed out before
+     */
+    public int nextRoundId(){
+        return roundIds.incrementAndGet();
+    }
+
+    /**
+     * loads the question bank that comes with the server, Resources/questions.tsv on the classpath
+     * @return the bank
+     * @throws IllegalStateException if it is missing, the server has no questions without it
+     */
+    private DataSet loadDefaultQuestions(){
+        try {
+            return new QuestionBankLoader(events).loadDefault();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load the built in questions: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * replaces the built in questions with a bank read from a file, see {@link QuestionBankLoader} for the format
+     * games that have already started keep the questions they started with
+     * @param file the question bank file
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file does not have enough valid questions for a game
+     */
+    public void loadQuestions(Path file) throws IOException {
+        DataSet bank = new QuestionBankLoader(events).load(file);
+        if (bank.size() < GameRoom.QUESTIONS_PER_GAME) {
+            throw new IllegalArgumentException(file + " has " + bank.size() + " valid questions, a game needs "
+                    + GameRoom.QUESTIONS_PER_GAME);
+        }
+        questions = bank;
+    }
+
+    /**
+     * reads media files from a folder instead of the classpath, so new images need no rebuild of anything
+     * @param directory the folder
+     */
+    public void setMediaDirectory(Path directory){
+        media = new MediaStore(directory, events);
+    }
+
+    /**
+     * Getter for the media files questions show
+     * @return {MediaStore}
+     */
+    public MediaStore getMedia(){
+        return media;
+    }
+
+    /**
+     * makes every game from now on draw its questions from one seed, so they all ask the same questions in order
+     * @param seed the seed
+     */
+    public void setQuestionSeed(long seed){
+        questionSeed = seed;
+        fixedSeed = true;
+    }
+
+    /**
+     * sets how long players have to answer each question, for rounds that start from now on
+     * @param seconds the time limit, 0 to wait for every player however long they take
+     */
+    public void setRoundSeconds(int seconds){
+        if (seconds < 0) {
+            throw new IllegalArgumentException("The round time can not be negative");
+        }
+        roundSeconds = seconds;
+    }
+
+    /**
+     * getter for how long players have to answer each question
+     * @return the time limit in seconds, 0 if rounds wait for every player
+     */
+    public int getRoundSeconds(){
+        return roundSeconds;
+    }
+
+    /**
+     * sets whether faster answers are worth more, for answers scored from now on
+     * @param speedScoring true to weight points by answer time, false for flat points
+     */
+    public void setSpeedScoring(boolean speedScoring){
+        this.speedScoring = speedScoring;
+    }
+
+    /**
+     * getter for whether faster answers are worth more
+     * @return true if points are weighted by answer time
+     */
+    public boolean isSpeedScoring(){
+        return speedScoring;
+    }
+
+    /**
+     * sets how long a dropped player has to resume their session, for players who drop from now on
+     * @param seconds the time to resume, 0 to forget players as soon as they drop
+     */
+    public void setResumeSeconds(int seconds){
+        if (seconds < 0) {
+            throw new IllegalArgumentException("The resume time can not be negative");
+        }
+        resumeSeconds = seconds;
+    }
+
+    /**
+     * getter for how long a dropped player has to resume their session
+     * @return the time in seconds, 0 if sessions can not be resumed
+     */
+    public int getResumeSeconds(){
+        return resumeSeconds;
+    }
+
+    /**
+     * getter for the threads that do the work timeouts start, leaving a room may end its round and send the next question
+     * @return the executor
+     */
+    public ExecutorService getTimeoutWork(){
+        return timeoutWork;
+    }
+
+    /**
+     * getter for the timer every room's round deadlines share
+     * @return the timer
+     */
+    public HashedWheelTimer getTimer(){
+        return timer;
+    }
+
+    /**
+     * makes a fresh set of questions for a game
+     * @return a data set sharing this server's questions with none of them used yet
+     */
+    public DataSet newDataSet(){
+        return fixedSeed ? new DataSet(questions, questionSeed) : new DataSet(questions);
+    }
+
+    /**
+     * makes a session token
+     * @return random bytes as hex
+     */
+    private String newToken(){
+        byte[] bytes = new byte[TOKEN_BYTES];
+        tokens.nextBytes(bytes);
+        StringBuilder token = new StringBuilder(TOKEN_BYTES * 2);
+        for (byte b : bytes) {
+            token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return token.toString();
+    }
+
+    /**
+     * makes and registers a new lobby room
+     * @return the new lobby
+     */
+    private GameRoom createLobby(){
+        while (true) {
+            GameRoom lobby = new GameRoom("lobby-" + lobbyCount.incrementAndGet(), this);
+            if (rooms.putIfAbsent(lobby.getName(), lobby) == null) { // a game restored from the journal may have the name
+                return lobby;
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * one thread that runs tasks after a delay, shared by every room for its round deadlines
+ * time is cut into ticks and a wheel of buckets holds the timeouts, a timeout goes in the bucket its tick lands
+ * on and counts down how many more turns of the wheel it has to wait, so scheduling and cancelling are O(1)
+ * no matter how many timeouts are waiting, and each tick only looks at one bucket
+ * timeouts fire up to a tick late, never early, and their tasks run on the timer thread so they must be quick
+ */
+public class HashedWheelTimer {
+
+    /**
+     * a timeout waiting in the wheel, cancel it once it is no longer needed
+     */
+    public static final class Timeout {
+
+        /**
+         * waiting to fire
+         */
+        private static final int WAITING = 0;
+
+        /**
+         * cancelled before it fired
+         */
+        private static final int CANCELLED = 1;
+
+        /**
+         * fired, its task has run or is running
+         */
+        private static final int EXPIRED = 2;
+
+        /**
+         * what to run when it fires
+         */
+        private final Runnable task;
+
+        /**
+         * when it should fire, from {@link System#nanoTime()}
+         */
+        private final long deadline;
+
+        /**
+         * whether it is waiting, cancelled or expired
+         */
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        /**
+         * how many more turns of the wheel before it fires, only touched by the timer thread
+         */
+        private long remainingRounds;
+
+        /**
+         * the next timeout in the same bucket, only touched by the timer thread
+         */
+        private Timeout next;
+
+        /**
+         * constructor for a timeout
+         * @param task what to run when it fires
+         * @param deadline when it should fire
+         */
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * stops the timeout from firing, the timer drops it the next time it passes its bucket
+         * @return true if it was cancelled, false if it had already fired or been cancelled
+         */
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        /**
+         * getter for whether the timeout was cancelled
+         * @return true if it was cancelled before it fired
+         */
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+
+    /**
+     * how long one tick is in nanoseconds
+     */
+    private final long tickNanos;
+
+    /**
+     * the buckets, each the head of a list of timeouts, only touched by the timer thread
+     */
+    private final Timeout[] wheel;
+
+    /**
+     * wheel length minus one, the length is a power of two so a tick finds its bucket with a mask
+     */
+    private final int mask;
+
+    /**
+     * timeouts scheduled since the last tick, the timer thread moves them into the wheel
+     */
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * where the timer reports tasks that throw
+     */
+    private final ServerEventSink events;
+
+    /**
+     * set once the timer thread has been started
+     */
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * when tick 0 began, set before the timer thread starts
+     */
+    private volatile long startTime;
+
+    /**
+     * constructor for a timer, its thread starts with the first timeout
+     * @param tick how long one tick is
+     * @param unit the unit of {tick}
+     * @param buckets how many buckets the wheel has, rounded up to a power of two
+     * @param events where to report tasks that throw
+     */
+    public HashedWheelTimer(long tick, TimeUnit unit, int buckets, ServerEventSink events) {
+        if (tick <= 0 || buckets <= 0 || buckets > 1 << 30) {
+            throw new IllegalArgumentException("The tick must be positive and the wheel from 1 to 2^30 buckets");
+        }
+        int length = 1;
+        while (length < buckets) {
+            length <<= 1;
+        }
+        this.tickNanos = unit.toNanos(tick);
+        this.wheel = new Timeout[length];
+        this.mask = length - 1;
+        this.events = events;
+    }
+
+    /**
+     * runs a task after a delay
+     * @param task what to run, on the timer thread
+     * @param delay how long to wait
+     * @param unit the unit of {delay}
+     * @return the timeout, to cancel it
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (started.compareAndSet(false, true)) {
+            startTime = System.nanoTime();
+            Thread worker = new Thread(this::run, "round-timer");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * turns the wheel forever, one bucket per tick
+     */
+    private void run() {
+        long tick = 0;
+        while (true) {
+            long tickEnd = startTime + (tick + 1) * tickNanos;
+            long wait;
+            while ((wait = tickEnd - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            transferPending(tick);
+            expire(tick);
+            tick++;
+        }
+    }
+
+    /**
+     * moves the timeouts scheduled since the last tick into their buckets
+     * @param tick the tick being processed
+     */
+    private void transferPending(long tick) {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long dueTick = Math.max(tick, (timeout.deadline - startTime + tickNanos - 1) / tickNanos - 1); // due already goes in this tick
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            int bucket = (int) (dueTick & mask);
+            timeout.next = wheel[bucket];
+            wheel[bucket] = timeout;
+        }
+    }
+
+    /**
+     * fires the due timeouts in this tick's bucket, dropping cancelled ones, the rest wait another turn
+     * @param tick the tick being processed
+     */
+    private void expire(long tick) {
+        int bucket = (int) (tick & mask);
+        Timeout previous = null;
+        Timeout timeout = wheel[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            boolean remove;
+            if (timeout.isCancelled()) {
+                remove = true;
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                remove = false;
+            } else {
+                remove = true;
+                if (timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        events.displayMessage("Timer task failed: " + e + "\n");
+                    }
+                }
+            }
+            if (remove) {
+                if (previous == null) {
+                    wheel[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+                timeout.next = null;
+            } else {
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+}
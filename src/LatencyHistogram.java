@@ -0,0 +1,135 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a histogram of durations in the style of HdrHistogram, every bucket is within about 3% of the values in it
+ * values below 32 get a bucket each, above that each power of two is split into 32 equal buckets,
+ * so the whole range of a long fits in under 2000 counters
+ * recording is one atomic increment plus two adders, it never locks or allocates so it can stay on in production
+ * reading walks the counters while others may still be recording, so a percentile can be a few samples behind
+ */
+public class LatencyHistogram {
+
+    /**
+     * how many bits of each value are kept exactly
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * how many buckets each power of two is split into
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * how many samples fell in each bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+
+    /**
+     * how many samples have been recorded
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * the sum of every sample, for the mean
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * the largest sample
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * records one duration
+     * @param nanos the duration in nanoseconds, negative durations from a clock going backwards count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long largest;
+        while (value > (largest = max.get()) && !max.compareAndSet(largest, value)) {
+            // another thread raised the max first, try again against theirs
+        }
+    }
+
+    /**
+     * finds the bucket a value falls in
+     * @param value the value, at least 0
+     * @return the index of its bucket
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS; // how far to shift to keep 6 bits
+        return (magnitude + 1) * SUB_BUCKETS + (int) (value >>> magnitude) - SUB_BUCKETS;
+    }
+
+    /**
+     * the smallest value that falls in a bucket
+     * @param bucket the index of the bucket
+     * @return the value
+     */
+    static long lowestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << magnitude;
+    }
+
+    /**
+     * getter for how many samples have been recorded
+     * @return the number of samples
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * getter for the mean of the samples
+     * @return the mean in nanoseconds, 0 before anything is recorded
+     */
+    public double getMean() {
+        long samples = count.sum();
+        return samples == 0 ? 0 : (double) sum.sum() / samples;
+    }
+
+    /**
+     * getter for the largest sample
+     * @return the largest sample in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * finds the value a percentage of the samples are at or below
+     * @param percentile the percentage, from 0 to 100
+     * @return the middle of the bucket the percentile falls in, in nanoseconds, 0 before anything is recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long low = lowestValueOf(i);
+                long high = i + 1 < counts.length() ? lowestValueOf(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(low + (high - low) / 2, max.get());
+            }
+        }
+        return max.get();
+    }
+}
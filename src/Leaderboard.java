@@ -0,0 +1,314 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * the standings of one game, kept up to date as scores change
+ * a treap where every node knows the size of its subtree, ordered by score (highest first) then session id,
+ * so a score change, the rank of a player and the top k players all take O(log n)
+ */
+public class Leaderboard {
+
+    /**
+     * one player's place in the tree
+     */
+    private static final class Node {
+
+        /**
+         * the player
+         */
+        final Player player;
+
+        /**
+         * the score the player had when this node was made
+         */
+        final double score;
+
+        /**
+         * the player's session id, breaks ties between equal scores
+         */
+        final long id;
+
+        /**
+         * random heap priority that keeps the tree balanced
+         */
+        final int priority;
+
+        /**
+         * how many nodes are in this subtree, this one included
+         */
+        int size = 1;
+
+        /**
+         * nodes ranked ahead of this one
+         */
+        Node left;
+
+        /**
+         * nodes ranked behind this one
+         */
+        Node right;
+
+        /**
+         * constructor for a node
+         * @param player the player
+         * @param score their score
+         * @param priority the heap priority
+         */
+        Node(Player player, double score, int priority) {
+            this.player = player;
+            this.score = score;
+            this.id = player.getSessionId();
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * guards the tree
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * each player's node, by session id
+     */
+    private final HashMap<Long, Node> nodes = new HashMap<>();
+
+    /**
+     * source of node priorities
+     */
+    private final Random priorities = new Random();
+
+    /**
+     * the root of the tree, null when empty
+     */
+    private Node root;
+
+    /**
+     * the left half of the last split, saves allocating a pair for every split
+     */
+    private Node splitLeft;
+
+    /**
+     * the right half of the last split
+     */
+    private Node splitRight;
+
+    /**
+     * sets a player's score, adding them if they are not on the board yet
+     * @param player the player
+     * @param score their new score
+     */
+    public void update(Player player, double score) {
+        lock.lock();
+        try {
+            Node old = nodes.get(player.getSessionId());
+            if (old != null) {
+                if (Double.compare(old.score, score) == 0) {
+                    return;
+                }
+                detach(old);
+            }
+            Node node = new Node(player, score, priorities.nextInt());
+            nodes.put(node.id, node);
+            split(root, score, node.id, false);
+            root = merge(merge(splitLeft, node), splitRight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * takes a player off the board
+     * @param player the player
+     */
+    public void remove(Player player) {
+        lock.lock();
+        try {
+            Node old = nodes.remove(player.getSessionId());
+            if (old != null) {
+                detach(old);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * gets where a player stands
+     * @param player the player
+     * @return their rank, 1 for first place, or 0 if they are not on the board
+     */
+    public int rank(Player player) {
+        lock.lock();
+        try {
+            Node target = nodes.get(player.getSessionId());
+            if (target == null) {
+                return 0;
+            }
+            int ahead = 0;
+            Node node = root;
+            while (node != null) {
+                int order = compare(target.score, target.id, node);
+                if (order < 0) {
+                    node = node.left;
+                } else {
+                    ahead += size(node.left);
+                    if (order == 0) {
+                        break;
+                    }
+                    ahead++;
+                    node = node.right;
+                }
+            }
+            return ahead + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * gets the players in the first few places
+     * @param k how many places
+     * @return up to k players, first place first
+     */
+    public List<Player> top(int k) {
+        lock.lock();
+        try {
+            ArrayList<Player> top = new ArrayList<>(Math.min(k, nodes.size()));
+            ArrayList<Node> path = new ArrayList<>();
+            Node node = root;
+            while (top.size() < k && (node != null || !path.isEmpty())) { // in order walk that stops after k
+                while (node != null) {
+                    path.add(node);
+                    node = node.left;
+                }
+                node = path.remove(path.size() - 1);
+                top.add(node.player);
+                node = node.right;
+            }
+            return top;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * gets the score a player has on the board
+     * @param player the player
+     * @return their score, 0 if they are not on the board
+     */
+    public double scoreOf(Player player) {
+        lock.lock();
+        try {
+            Node node = nodes.get(player.getSessionId());
+            return node == null ? 0 : node.score;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * getter for how many players are on the board
+     * @return the number of players
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * cuts a node out of the tree, must hold the lock
+     * @param node the node
+     */
+    private void detach(Node node) {
+        split(root, node.score, node.id, false);
+        Node before = splitLeft;
+        split(splitRight, node.score, node.id, true); // the node is now alone on the left
+        root = merge(before, splitRight);
+    }
+
+    /**
+     * splits a subtree into the nodes ranked ahead of a key and the rest, results go in splitLeft and splitRight
+     * @param node the subtree
+     * @param score the key's score
+     * @param id the key's session id
+     * @param inclusive true to put a node equal to the key on the left
+     */
+    private void split(Node node, double score, long id, boolean inclusive) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        int order = compare(score, id, node);
+        if (order > 0 || (inclusive && order == 0)) { // node is ahead of the key
+            split(node.right, score, id, inclusive);
+            node.right = splitLeft;
+            resize(node);
+            splitLeft = node;
+        } else {
+            split(node.left, score, id, inclusive);
+            node.left = splitRight;
+            resize(node);
+            splitRight = node;
+        }
+    }
+
+    /**
+     * joins two subtrees where everything in the first is ranked ahead of everything in the second
+     * @param ahead the first subtree
+     * @param behind the second subtree
+     * @return the joined subtree
+     */
+    private Node merge(Node ahead, Node behind) {
+        if (ahead == null) {
+            return behind;
+        }
+        if (behind == null) {
+            return ahead;
+        }
+        if (ahead.priority > behind.priority) {
+            ahead.right = merge(ahead.right, behind);
+            resize(ahead);
+            return ahead;
+        }
+        behind.left = merge(ahead, behind.left);
+        resize(behind);
+        return behind;
+    }
+
+    /**
+     * compares a key to a node
+     * @param score the key's score
+     * @param id the key's session id
+     * @param node the node
+     * @return negative if the key is ranked ahead of the node, positive if behind, 0 if it is the node
+     */
+    private static int compare(double score, long id, Node node) {
+        int order = Double.compare(node.score, score); // higher scores rank first
+        return order != 0 ? order : Long.compare(id, node.id);
+    }
+
+    /**
+     * recomputes a node's subtree size from its children
+     * @param node the node
+     */
+    private static void resize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    /**
+     * getter for a subtree's size
+     * @param node the subtree, may be null
+     * @return its size
+     */
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
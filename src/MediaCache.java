@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * the client's folder of media files fetched from the server, each stored under its content hash
+ * a file is checked against its hash when it is read, so a damaged file is fetched again rather than shown
+ * the cache is only ever a shortcut, if it can not be read or written the client just fetches the file
+ */
+public class MediaCache {
+
+    /**
+     * the folder the files are kept in
+     */
+    private final Path directory;
+
+    /**
+     * constructor for a media cache in the default folder, .trivia/media in the user's home
+     */
+    public MediaCache() {
+        this(Paths.get(System.getProperty("user.home"), ".trivia", "media"));
+    }
+
+    /**
+     * constructor for a media cache
+     * @param directory the folder to keep the files in, made when the first file is stored
+     */
+    public MediaCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * reads a cached file
+     * @param hash the content hash of the file
+     * @return the bytes, or null if the file is not cached or no longer matches its hash
+     */
+    public byte[] read(String hash) {
+        if (!Protocol.isMediaHash(hash)) {
+            return null;
+        }
+        Path file = directory.resolve(hash);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            if (Protocol.mediaHash(bytes).equals(hash)) {
+                return bytes;
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // treated as not cached
+        }
+        return null;
+    }
+
+    /**
+     * stores a file, written to a temporary file first so a half written file is never found under the hash
+     * @param hash the content hash of the file, already checked against the bytes
+     * @param bytes the file
+     */
+    public void write(String hash, byte[] bytes) {
+        if (!Protocol.isMediaHash(hash)) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, hash, ".part");
+            try {
+                Files.write(temporary, bytes);
+                try {
+                    Files.move(temporary, directory.resolve(hash), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, directory.resolve(hash), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            // the file is still shown, it will just be fetched again next time
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import java.nio.ByteBuffer;
+
+/**
+ * one piece of a media file as it arrives from the server, see {@link Protocol#encodeMediaChunk(String, byte[], int)}
+ */
+public final class MediaChunk {
+
+    /**
+     * the content hash of the whole file
+     */
+    private final String hash;
+
+    /**
+     * how long the whole file is
+     */
+    private final int fileLength;
+
+    /**
+     * which chunk this is
+     */
+    private final int index;
+
+    /**
+     * the bytes of this chunk
+     */
+    private final ByteBuffer data;
+
+    /**
+     * constructor for a media chunk
+     * @param hash the content hash of the whole file
+     * @param fileLength how long the whole file is
+     * @param index which chunk this is
+     * @param data the bytes of this chunk
+     */
+    public MediaChunk(String hash, int fileLength, int index, ByteBuffer data) {
+        this.hash = hash;
+        this.fileLength = fileLength;
+        this.index = index;
+        this.data = data;
+    }
+
+    /**
+     * getter for the content hash of the whole file
+     * @return the hash
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * getter for how long the whole file is
+     * @return the length in bytes
+     */
+    public int getFileLength() {
+        return fileLength;
+    }
+
+    /**
+     * getter for which chunk this is
+     * @return the index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * getter for the bytes of this chunk, each call gives a separate view
+     * @return the bytes
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * puts a media file back together on the client as its chunks arrive, in order
+ * the client asks for {@link Protocol#MEDIA_WINDOW} chunks at a time and asks for the next window once one is in,
+ * if a chunk goes missing the rest of the file is asked for again from the missing chunk
+ */
+public class MediaDownload {
+
+    /**
+     * the content hash of the file being fetched
+     */
+    private final String hash;
+
+    /**
+     * the file so far, made once the first chunk says how long it is
+     */
+    private byte[] file;
+
+    /**
+     * how many chunks the file has, 0 until the first chunk arrives
+     */
+    private int chunkCount;
+
+    /**
+     * the chunk expected next
+     */
+    private int nextChunk;
+
+    /**
+     * the chunk after the last one of the window most recently asked for
+     */
+    private int windowEnd;
+
+    /**
+     * constructor for a media download
+     * @param hash the content hash of the file to fetch
+     */
+    public MediaDownload(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * getter for the content hash of the file being fetched
+     * @return the hash
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * asks for the next window of chunks, starting at the chunk expected next
+     * @return the request frame to send
+     */
+    public byte[] nextRequest() {
+        windowEnd = nextChunk + Protocol.MEDIA_WINDOW;
+        return Protocol.encodeMediaRequest(hash, nextChunk);
+    }
+
+    /**
+     * adds a chunk to the file
+     * @param chunk the chunk
+     * @return false if the chunk was not the one expected and was ignored
+     */
+    public boolean accept(MediaChunk chunk) {
+        if (!chunk.getHash().equals(hash) || chunk.getIndex() != nextChunk) {
+            return false;
+        }
+        if (file == null) {
+            if (chunk.getFileLength() <= 0 || chunk.getFileLength() > Protocol.MAX_MEDIA_LENGTH) {
+                return false;
+            }
+            file = new byte[chunk.getFileLength()];
+            chunkCount = (file.length + Protocol.MEDIA_CHUNK_SIZE - 1) / Protocol.MEDIA_CHUNK_SIZE;
+        }
+        int offset = nextChunk * Protocol.MEDIA_CHUNK_SIZE;
+        int length = Math.min(Protocol.MEDIA_CHUNK_SIZE, file.length - offset);
+        if (chunk.getFileLength() != file.length || chunk.getData().remaining() != length) {
+            return false;
+        }
+        chunk.getData().get(file, offset, length);
+        nextChunk++;
+        return true;
+    }
+
+    /**
+     * checks whether a chunk that was not accepted shows one went missing, so the rest should be asked for again
+     * only the last chunk of the window asked for counts, so one gap leads to one new request
+     * @param rejected a chunk {@link #accept(MediaChunk)} did not take
+     * @return true if {@link #nextRequest()} should be sent
+     */
+    public boolean shouldRetry(MediaChunk rejected) {
+        if (!rejected.getHash().equals(hash) || rejected.getIndex() <= nextChunk) {
+            return false;
+        }
+        int chunks = (rejected.getFileLength() + Protocol.MEDIA_CHUNK_SIZE - 1) / Protocol.MEDIA_CHUNK_SIZE;
+        return rejected.getIndex() == Math.min(windowEnd, chunks) - 1;
+    }
+
+    /**
+     * checks whether the window asked for has all arrived and more of the file is still to come
+     * @return true if {@link #nextRequest()} should be sent
+     */
+    public boolean needsNextWindow() {
+        return !isComplete() && nextChunk == windowEnd;
+    }
+
+    /**
+     * checks whether every chunk has arrived
+     * @return true if the file is complete
+     */
+    public boolean isComplete() {
+        return file != null && nextChunk == chunkCount;
+    }
+
+    /**
+     * gives the finished file if it matches its hash
+     * @return the file, or null if it is not complete or does not match
+     */
+    public byte[] getFile() {
+        return isComplete() && Protocol.mediaHash(file).equals(hash) ? file : null;
+    }
+}
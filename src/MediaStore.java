@@ -0,0 +1,152 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the server's media files, read the first time a question needs one and then kept ready to send
+ * each file is known by its content hash and is encoded once into chunk frames that every player shares,
+ * clients keep what they have fetched by hash so a file they have seen before is never sent again
+ */
+public class MediaStore {
+
+    /**
+     * stands in for a file that could not be read, so it is only looked for once
+     */
+    private static final Media MISSING = new Media("", new ByteBuffer[0]);
+
+    /**
+     * the folder media files are read from, or null to read them from the classpath like the built in questions do
+     */
+    private final Path directory;
+
+    /**
+     * where problems reading files are reported
+     */
+    private final ServerEventSink events;
+
+    /**
+     * every file looked for, by name
+     */
+    private final ConcurrentHashMap<String, Media> byName = new ConcurrentHashMap<>();
+
+    /**
+     * every file found, by content hash
+     */
+    private final ConcurrentHashMap<String, Media> byHash = new ConcurrentHashMap<>();
+
+    /**
+     * constructor for a media store
+     * @param directory the folder to read media files from, or null to read them from the classpath
+     * @param events where to report files that can not be read
+     */
+    public MediaStore(Path directory, ServerEventSink events) {
+        this.directory = directory;
+        this.events = events;
+    }
+
+    /**
+     * gives a question the content hash of its media file, reading the file if this is the first time it is needed
+     * @param question the question
+     * @return the question with its media hash, or the question unchanged if it has no media or the file is missing
+     */
+    public QuestionData attach(QuestionData question) {
+        if (question.getFileName().isEmpty()) {
+            return question;
+        }
+        Media media = byName.computeIfAbsent(question.getFileName(), this::load);
+        return media == MISSING ? question : question.withMediaHash(media.hash);
+    }
+
+    /**
+     * sends a player the next window of chunks they asked for
+     * requests for files this store does not have, or past the end of a file, are ignored
+     * @param player the player asking
+     * @param hash the content hash of the file
+     * @param firstChunk the first chunk wanted
+     */
+    public void sendChunks(Player player, String hash, int firstChunk) {
+        Media media = byHash.get(hash);
+        if (media == null || firstChunk < 0 || firstChunk >= media.chunks.length) {
+            return;
+        }
+        int end = Math.min(media.chunks.length, firstChunk + Protocol.MEDIA_WINDOW);
+        for (int i = firstChunk; i < end; i++) {
+            player.sendData(media.chunks[i]);
+        }
+    }
+
+    /**
+     * reads a media file and encodes its chunks
+     * @param fileName the name of the file
+     * @return the file ready to send, or {@link #MISSING}
+     */
+    private Media load(String fileName) {
+        byte[] file;
+        try {
+            file = read(fileName);
+        } catch (IOException e) {
+            events.displayMessage("could not read media " + fileName + ": " + e.getMessage() + "\n");
+            return MISSING;
+        }
+        if (file == null || file.length == 0 || file.length > Protocol.MAX_MEDIA_LENGTH) {
+            events.displayMessage("media " + fileName + (file == null ? " not found" : " is empty or too big") + "\n");
+            return MISSING;
+        }
+        String hash = Protocol.mediaHash(file);
+        ByteBuffer[] chunks = new ByteBuffer[(file.length + Protocol.MEDIA_CHUNK_SIZE - 1) / Protocol.MEDIA_CHUNK_SIZE];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Protocol.share(Protocol.encodeMediaChunk(hash, file, i));
+        }
+        Media media = new Media(hash, chunks);
+        Media existing = byHash.putIfAbsent(hash, media); // two names for the same bytes share one copy
+        return existing == null ? media : existing;
+    }
+
+    /**
+     * reads the bytes of a media file
+     * @param fileName the name of the file
+     * @return the bytes, or null if there is no such file
+     * @throws IOException if the file can not be read
+     */
+    private byte[] read(String fileName) throws IOException {
+        if (directory == null) {
+            try (InputStream in = MediaStore.class.getResourceAsStream("/" + fileName)) {
+                return in == null ? null : in.readAllBytes();
+            }
+        }
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory.normalize()) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return Files.readAllBytes(file);
+    }
+
+    /**
+     * one media file, encoded and ready to send
+     */
+    private static final class Media {
+
+        /**
+         * the content hash of the file
+         */
+        private final String hash;
+
+        /**
+         * the file as chunk frames, shared by every player, see {@link Protocol#share(byte[])}
+         */
+        private final ByteBuffer[] chunks;
+
+        /**
+         * constructor for a media file
+         * @param hash the content hash of the file
+         * @param chunks the file as chunk frames
+         */
+        Media(String hash, ByteBuffer[] chunks) {
+            this.hash = hash;
+            this.chunks = chunks;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
 
 /**
  * Contains all fields and methods needed for multiple choice questions
@@ -12,9 +13,9 @@ public class MultipleChoiceQuestion extends Question{
     private String[] choices;
 
     /**
-     * {JButton[]} Buttons for multiple choice options
+     * {JButton[]} Buttons for multiple choice options, kept when the choices change and only added to when more are needed
      */
-    private JButton[] choiceButtons;
+    private JButton[] choiceButtons = new JButton[0];
 
     /**
      * {String} contains user's button selection
@@ -32,7 +33,7 @@ public class MultipleChoiceQuestion extends Question{
      * @param choices {String[]} multiple choice answer options
      */
     public MultipleChoiceQuestion(String questionDescription, String[] choices, String correctChoice){
-        super(questionDescription, "Please select one from the following choices.");
+        super(questionDescription, QuestionType.MULTIPLE_CHOICE.getPrompt());
         setChoices(choices);
         setCorrectChoice(correctChoice);
     }
@@ -48,38 +49,51 @@ public class MultipleChoiceQuestion extends Question{
     }
 
     /**
-     * Setter for choices array
+     * {ActionListener} shared by every choice button
+     */
+    private final ActionListener buttonListener = new ActionListener() { // create action listener for buttons
+
+        /**
+         * Specifies actions to take when a button is pressed
+         * @param actionEvent {ActionEvent}
+         */
+        @Override
+        public void actionPerformed(ActionEvent actionEvent) {
+            try {
+                // get button pressed
+                String action = actionEvent.getActionCommand();
+                for (int i = 0; i < getChoices().length; i++) {
+                    if (action.equals(getChoices()[i])) {
+                        setChoice(getChoices()[i]); // set user entered choice
+                    }
+                }
+            }
+            catch(NullPointerException exception){
+                addToQuestionOptions(new JTextField("Choices may have not be initialized"));
+            }
+        }
+    };
+
+    /**
+     * Setter for choices array, relabels the existing buttons and hides any that are not needed
      * @param choices {String[]}
      */
     public void setChoices(String[] choices){
         this.choices = choices.clone(); // copy the String array
-        choiceButtons = new JButton[choices.length]; // initializes the array of buttons to be the same length as the question options
-        ActionListener buttonListener = new ActionListener() { // create action listener for buttons
-
-            /**
-             * Specifies actions to take when a button is pressed
-             * @param actionEvent {ActionEvent}
-             */
-            @Override
-            public void actionPerformed(ActionEvent actionEvent) {
-                try {
-                    // get button pressed
-                    String action = actionEvent.getActionCommand();
-                    for (int i = 0; i < getChoices().length; i++) {
-                        if (action.equals(getChoices()[i])) {
-                            setChoice(getChoices()[i]); // set user entered choice
-                        }
-                    }
-                }
-                catch(NullPointerException exception){
-                    addToQuestionOptions(new JTextField("Choices may have not be initialized"));
-                }
+        if (choiceButtons.length < choices.length) { // only make buttons for choices this view has never needed before
+            JButton[] grown = Arrays.copyOf(choiceButtons, choices.length);
+            for (int i = choiceButtons.length; i < choices.length; i++){
+                grown[i] = new JButton(); // initialize each button
+                grown[i].addActionListener(buttonListener); // add action listener to each button
+                addToQuestionOptions(grown[i]); // add choices buttons to GUI
+            }
+            choiceButtons = grown;
+        }
+        for (int i=0; i< choiceButtons.length; i++){
+            if (i < choices.length) {
+                choiceButtons[i].setText(choices[i]); // the action command follows the text
             }
-        };
-        for (int i=0; i< choices.length; i++){
-            choiceButtons[i] = new JButton(choices[i]); // initialize each button
-            choiceButtons[i].addActionListener(buttonListener); // add action listener to each button
-            addToQuestionOptions(choiceButtons[i]); // add choices buttons to GUI
+            choiceButtons[i].setVisible(i < choices.length);
         }
     }
 
@@ -124,20 +138,23 @@ public class MultipleChoiceQuestion extends Question{
     }
 
     /**
-     * Implements super abstract method and sets the score equal to 1 if the user is correct
+     * Implementation of super bindOptions method, shows the new choices with nothing selected
+     * @param data {QuestionData}
      */
     @Override
-    public void calculateScore(){
-        try {
-
-            if (getChoice().equals(getCorrectChoice())) {
-                setScore(1);
-            } else {
-                setScore(0);
-            }
-        }catch (NullPointerException e){
+    protected void bindOptions(QuestionData data) {
+        setChoices(data.getChoices());
+        setCorrectChoice(data.getAnswerCount() == 0 ? "" : data.getAnswer(0));
+        setChoice(null);
+    }
 
-        }
+    /**
+     * Implements super abstract method and gives the choice the user selected
+     * @return {String[]} the selected choice, empty if none has been selected
+     */
+    @Override
+    public String[] getResponse(){
+        return new String[]{getChoice() == null ? "" : getChoice()};
     }
 
     /**
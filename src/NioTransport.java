@@ -0,0 +1,468 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * transport built on NIO selectors, a small fixed number of I/O threads serve every player
+ * each I/O thread owns a selector and the connections registered with it, reads and writes never block
+ * frames are handed to the game on the I/O thread, so game code must only ever queue output, never wait
+ */
+public class NioTransport implements Transport {
+
+    /**
+     * the size a connection's read buffer starts at, it grows for bigger frames
+     */
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    /**
+     * the most queued frames handed to one gathering write
+     */
+    private static final int MAX_GATHER = 16;
+
+    /**
+     * the port to listen on
+     */
+    private final int port;
+
+    /**
+     * the I/O threads, connections are spread across them in turn
+     */
+    private final IoLoop[] loops;
+
+    /**
+     * how many frames each player's outbound queue holds
+     */
+    private final int queueCapacity;
+
+    /**
+     * what a full outbound queue does
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * constructor for an NIO transport with the default outbound queues
+     * @param port the port to listen on
+     * @param ioThreads how many I/O threads to run
+     */
+    public NioTransport(int port, int ioThreads) {
+        this(port, ioThreads, OutboundQueue.DEFAULT_CAPACITY, OverflowPolicy.DISCONNECT);
+    }
+
+    /**
+     * constructor for an NIO transport
+     * @param port the port to listen on
+     * @param ioThreads how many I/O threads to run
+     * @param queueCapacity how many frames each player's outbound queue holds
+     * @param overflowPolicy what a full outbound queue does
+     */
+    public NioTransport(int port, int ioThreads, int queueCapacity, OverflowPolicy overflowPolicy) {
+        if (ioThreads < 1) {
+            throw new IllegalArgumentException("need at least one I/O thread");
+        }
+        this.port = port;
+        this.loops = new IoLoop[ioThreads];
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * starts the I/O threads then accepts players forever on the calling thread
+     * @param server the game to hand players to
+     */
+    @Override
+    public void serve(GameServer server) {
+        ServerSocketChannel acceptor = null;
+        try {
+            for (int i = 0; i < loops.length; i++) {
+                loops[i] = new IoLoop(server, queueCapacity, overflowPolicy);
+                Thread thread = new Thread(loops[i], "nio-io-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            acceptor = ServerSocketChannel.open();
+            acceptor.bind(new InetSocketAddress(port), 100);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        server.displayMessage("Server awaiting connections (NIO, " + loops.length + " I/O threads)\n");
+
+        int next = 0;
+        while (true) {
+            try {
+                SocketChannel channel = acceptor.accept(); // blocking accept, everything after this is non-blocking
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                loops[next].add(channel);
+                next = (next + 1) % loops.length;
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * one I/O thread and its selector
+     */
+    private static class IoLoop implements Runnable {
+
+        /**
+         * the game connections are handed to
+         */
+        private final GameServer server;
+
+        /**
+         * how many frames each player's outbound queue holds
+         */
+        private final int queueCapacity;
+
+        /**
+         * what a full outbound queue does
+         */
+        private final OverflowPolicy overflowPolicy;
+
+        /**
+         * the selector for every connection on this thread
+         */
+        private final Selector selector;
+
+        /**
+         * channels accepted but not registered yet
+         */
+        private final ConcurrentLinkedQueue<SocketChannel> newChannels = new ConcurrentLinkedQueue<>();
+
+        /**
+         * connections that queued output from another thread and need write interest turned on
+         */
+        private final ConcurrentLinkedQueue<NioConnection> wantWrite = new ConcurrentLinkedQueue<>();
+
+        /**
+         * connections closed since the last select whose players still need telling
+         */
+        private final ConcurrentLinkedQueue<NioConnection> wantClose = new ConcurrentLinkedQueue<>();
+
+        /**
+         * constructor for an I/O loop
+         * @param server the game connections are handed to
+         * @param queueCapacity how many frames each player's outbound queue holds
+         * @param overflowPolicy what a full outbound queue does
+         * @throws IOException if the selector can not be opened
+         */
+        IoLoop(GameServer server, int queueCapacity, OverflowPolicy overflowPolicy) throws IOException {
+            this.server = server;
+            this.queueCapacity = queueCapacity;
+            this.overflowPolicy = overflowPolicy;
+            this.selector = Selector.open();
+        }
+
+        /**
+         * hands a new channel to this loop
+         * @param channel the accepted channel, already non-blocking
+         */
+        void add(SocketChannel channel) {
+            newChannels.add(channel);
+            selector.wakeup();
+        }
+
+        /**
+         * asks this loop to start writing a connection's queued output
+         * @param connection the connection
+         */
+        void requestWrite(NioConnection connection) {
+            wantWrite.add(connection);
+            selector.wakeup();
+        }
+
+        /**
+         * asks this loop to finish closing a connection and tell its player
+         * @param connection the connection
+         */
+        void requestClose(NioConnection connection) {
+            wantClose.add(connection);
+            selector.wakeup();
+        }
+
+        /**
+         * selects and serves ready connections forever
+         */
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    registerNewChannels();
+                    enableWrites();
+                    finishCloses();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException | CancelledKeyException e) {
+                            connection.close();
+                        } catch (RuntimeException e) { // one bad frame must not take the loop, and every player on it, down
+                            server.displayMessage("Closing a connection after an error handling its frames: " + e + "\n");
+                            connection.close();
+                        }
+                    }
+                    finishCloses(); // tells players about anything closed while serving keys
+                } catch (IOException e) {
+                    server.displayMessage("I/O loop error: " + e.getMessage() + "\n");
+                }
+            }
+        }
+
+        /**
+         * registers the channels handed over since the last select
+         */
+        private void registerNewChannels() {
+            SocketChannel channel;
+            while ((channel = newChannels.poll()) != null) {
+                NioConnection connection = new NioConnection(this, channel, new OutboundQueue(queueCapacity, overflowPolicy));
+                try {
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch (ClosedChannelException e) {
+                    continue;
+                }
+                connection.player = server.connect(connection);
+                enableWrites(); // connecting usually queues a welcome message
+            }
+        }
+
+        /**
+         * tells the players of closed connections, done here so game code never sees onClose in the middle of a send
+         */
+        private void finishCloses() {
+            NioConnection connection;
+            while ((connection = wantClose.poll()) != null) {
+                if (connection.key != null) {
+                    connection.key.cancel();
+                }
+                if (connection.player != null) {
+                    connection.player.onClose(connection);
+                }
+            }
+        }
+
+        /**
+         * turns on write interest for connections that queued output
+         */
+        private void enableWrites() {
+            NioConnection connection;
+            while ((connection = wantWrite.poll()) != null) {
+                if (connection.key != null && connection.key.isValid()) {
+                    connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            }
+        }
+    }
+
+    /**
+     * one player's channel with its own read buffer and bounded queue of frames to write
+     */
+    private static class NioConnection implements Connection {
+
+        /**
+         * the loop this connection is registered with
+         */
+        private final IoLoop loop;
+
+        /**
+         * the channel to the player
+         */
+        private final SocketChannel channel;
+
+        /**
+         * the selection key, only touched on the loop thread
+         */
+        private SelectionKey key;
+
+        /**
+         * the player this connection belongs to
+         */
+        private volatile Player player;
+
+        /**
+         * bytes read but not yet made into frames, kept in write mode between reads
+         */
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        /**
+         * frames waiting to be written
+         */
+        private final OutboundQueue queue;
+
+        /**
+         * frames taken from the queue and being written, the first may be partly written, only touched on the loop thread
+         */
+        private final ByteBuffer[] inFlight = new ByteBuffer[MAX_GATHER];
+
+        /**
+         * index of the first unfinished frame in inFlight
+         */
+        private int inFlightStart;
+
+        /**
+         * how many frames are in inFlight
+         */
+        private int inFlightCount;
+
+        /**
+         * true while write interest is on or has been asked for
+         */
+        private final AtomicBoolean writing = new AtomicBoolean();
+
+        /**
+         * set once the connection has been closed
+         */
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * constructor for an NIO connection
+         * @param loop the loop it is registered with
+         * @param channel the channel to the player
+         * @param queue the queue for frames to the player
+         */
+        NioConnection(IoLoop loop, SocketChannel channel, OutboundQueue queue) {
+            this.loop = loop;
+            this.channel = channel;
+            this.queue = queue;
+        }
+
+        /**
+         * reads whatever is available and hands every complete frame to the player
+         * @throws IOException if the channel fails, ends or sends a bad frame
+         */
+        void read() throws IOException {
+            int count = channel.read(readBuffer);
+            if (count < 0) {
+                throw new IOException("end of stream");
+            }
+            loop.server.getMetrics().bytesIn(count);
+            long receivedAt = System.nanoTime(); // every frame in this read arrived together
+            readBuffer.flip();
+            while (readBuffer.remaining() >= Protocol.HEADER_LENGTH) {
+                int length = readBuffer.getInt(readBuffer.position());
+                Protocol.checkLength(length);
+                if (readBuffer.remaining() < Protocol.HEADER_LENGTH + length) {
+                    if (readBuffer.capacity() < Protocol.HEADER_LENGTH + length) { // frame is bigger than the buffer
+                        ByteBuffer bigger = ByteBuffer.allocate(Protocol.HEADER_LENGTH + length);
+                        bigger.put(readBuffer);
+                        readBuffer = bigger;
+                        return;
+                    }
+                    break;
+                }
+                readBuffer.position(readBuffer.position() + Protocol.HEADER_LENGTH);
+                byte[] data = new byte[length]; // the game may keep the frame, so it gets its own copy
+                readBuffer.get(data);
+                player.onFrame(new Frame(data[0], ByteBuffer.wrap(data, 1, length - 1).slice(), receivedAt));
+                if (closed.get()) {
+                    return;
+                }
+            }
+            readBuffer.compact();
+        }
+
+        /**
+         * writes as much queued output as the socket takes, turning write interest off once it is all gone
+         * @throws IOException if the channel fails
+         */
+        void write() throws IOException {
+            while (true) {
+                if (inFlightStart == inFlightCount) {
+                    inFlightStart = 0;
+                    inFlightCount = queue.drainTo(inFlight, MAX_GATHER);
+                    if (inFlightCount == 0) {
+                        break;
+                    }
+                }
+                long written = channel.write(inFlight, inFlightStart, inFlightCount - inFlightStart); // one system call for several frames
+                loop.server.getMetrics().bytesOut(written);
+                long writtenAt = System.nanoTime();
+                while (inFlightStart < inFlightCount && !inFlight[inFlightStart].hasRemaining()) {
+                    if (Protocol.isQuestion(inFlight[inFlightStart])) { // the player's answer time starts now
+                        player.onQuestionWritten(writtenAt);
+                    }
+                    inFlight[inFlightStart++] = null;
+                }
+                if (inFlightStart < inFlightCount) {
+                    return; // socket is full, wait for the next writable event
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            writing.set(false);
+            if (!queue.isEmpty() && writing.compareAndSet(false, true)) { // something was queued while finishing
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        /**
+         * queues a frame for the I/O thread to write, safe to call from any thread
+         * @param frame the whole frame, length included, shared with other connections
+         */
+        @Override
+        public void send(ByteBuffer frame) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(frame.duplicate())) { // shares the bytes, only the position is our own
+                loop.server.displayMessage("Disconnecting a player whose outbound queue is full\n");
+                close();
+                return;
+            }
+            if (writing.compareAndSet(false, true)) {
+                loop.requestWrite(this);
+            }
+        }
+
+        /**
+         * getter for the queue of frames waiting to be written
+         * @return the queue
+         */
+        @Override
+        public OutboundQueue getOutboundQueue() {
+            return queue;
+        }
+
+        @Override
+        public void setPlayer(Player player) {
+            this.player = player;
+        }
+
+        /**
+         * closes the channel, the loop tells the player afterwards, only the first call does anything
+         */
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            queue.clear();
+            loop.requestClose(this);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * a bounded queue of frames waiting to be written to one player
+ * game code only ever adds to it, the transport drains it on its own thread, so a slow player never holds up a room
+ * keeps the depth numbers for the player so slow connections can be spotted
+ */
+public class OutboundQueue {
+
+    /**
+     * how many frames a queue holds unless told otherwise
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * the frames waiting, oldest first
+     */
+    private final ArrayDeque<ByteBuffer> frames;
+
+    /**
+     * the most frames the queue holds
+     */
+    private final int capacity;
+
+    /**
+     * what to do when the queue is full
+     */
+    private final OverflowPolicy policy;
+
+    /**
+     * guards frames
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * how many frames are queued right now
+     */
+    private volatile int depth;
+
+    /**
+     * the most frames that have been queued at once
+     */
+    private volatile int maxDepth;
+
+    /**
+     * how many frames have been thrown away because the queue was full
+     */
+    private volatile long dropped;
+
+    /**
+     * constructor for an outbound queue
+     * @param capacity the most frames the queue holds
+     * @param policy what to do when the queue is full
+     */
+    public OutboundQueue(int capacity, OverflowPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.frames = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    /**
+     * adds a frame, applying the overflow policy if the queue is full
+     * @param frame the frame, owned by this queue from now on
+     * @return false if the policy says the player should be disconnected
+     */
+    public boolean offer(ByteBuffer frame) {
+        lock.lock();
+        try {
+            if (frames.size() >= capacity) {
+                switch (policy) {
+                    case DISCONNECT:
+                        return false;
+                    case COALESCE:
+                        if (!removeOldestOfType(typeOf(frame))) {
+                            dropped++;
+                            return true;
+                        }
+                        dropped++;
+                        break;
+                    default:
+                        dropped++;
+                        return true;
+                }
+            }
+            frames.add(frame);
+            depth = frames.size();
+            if (depth > maxDepth) {
+                maxDepth = depth;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * takes the oldest frame
+     * @return the frame, or null if the queue is empty
+     */
+    public ByteBuffer poll() {
+        lock.lock();
+        try {
+            ByteBuffer frame = frames.poll();
+            depth = frames.size();
+            return frame;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * takes up to a number of the oldest frames in one go
+     * @param into where to put them, starting at index 0
+     * @param max the most to take
+     * @return how many were taken
+     */
+    public int drainTo(ByteBuffer[] into, int max) {
+        lock.lock();
+        try {
+            int count = 0;
+            while (count < max && !frames.isEmpty()) {
+                into[count++] = frames.poll();
+            }
+            depth = frames.size();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * throws away everything queued, used when the connection closes
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            frames.clear();
+            depth = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * getter for weather anything is queued
+     * @return true if nothing is queued
+     */
+    public boolean isEmpty() {
+        return depth == 0;
+    }
+
+    /**
+     * getter for how many frames are queued right now
+     * @return the depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * getter for the most frames that have been queued at once
+     * @return the highest depth seen
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * getter for how many frames have been thrown away because the queue was full
+     * @return the number of frames dropped
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * removes the oldest queued frame of a type, must hold the lock
+     * @param type the message type
+     * @return true if one was removed
+     */
+    private boolean removeOldestOfType(byte type) {
+        Iterator<ByteBuffer> queued = frames.iterator();
+        while (queued.hasNext()) {
+            if (typeOf(queued.next()) == type) {
+                queued.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * reads the message type of an encoded frame without moving it
+     * @param frame the frame
+     * @return the message type
+     */
+    private static byte typeOf(ByteBuffer frame) {
+        return frame.get(frame.position() + Protocol.HEADER_LENGTH);
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * what a player's {@link OutboundQueue} does when a frame arrives and the queue is full
+ */
+public enum OverflowPolicy {
+    /**
+     * the new frame is thrown away
+     */
+    DROP,
+
+    /**
+     * the oldest queued frame of the same type is thrown away to make room, a newer question or
+     * score makes an unsent older one pointless; if there is none the new frame is thrown away
+     */
+    COALESCE,
+
+    /**
+     * the player is disconnected, a client that far behind is treated as gone
+     */
+    DISCONNECT
+}
@@ -0,0 +1,474 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * the server side of one connected player, gets its frames from whichever {@link Transport} the server runs
+ * a player whose connection drops is suspended rather than forgotten, a new connection that sends their
+ * session token takes their seat back along with their score, see {@link GameServer#resume(Player, String)}
+ * implements Comparable for easy sort based on score at the end
+ * @author Austin Letsch
+ */
+public class Player implements Comparable<Player> {
+
+    /**
+     * connected, frames go to {connection}
+     */
+    private static final int CONNECTED = 0;
+
+    /**
+     * the connection dropped, the seat is kept until the session is resumed or expires
+     */
+    private static final int SUSPENDED = 1;
+
+    /**
+     * gone for good, the session can not be resumed
+     */
+    private static final int GONE = 2;
+
+    /**
+     * the server this player is connected to
+     */
+    private final GameServer server;
+
+    /**
+     * the connection to this player, replaced when the session is resumed on a new one
+     */
+    private volatile Connection connection;
+
+    /**
+     * the token that resumes this player's session, null if it can not be resumed
+     */
+    private final String token;
+
+    /**
+     * whether the player is connected, suspended or gone, guarded by this player's monitor
+     */
+    private int state = CONNECTED;
+
+    /**
+     * forgets the suspended player once the time to resume has run out, null while connected
+     */
+    private HashedWheelTimer.Timeout expiry;
+
+    /**
+     * true from connecting until the player is seated in the open lobby, so a leading RESUME frame can take an
+     * earlier seat without this player ever being announced, see {@link GameServer#place(Player)}
+     */
+    private final AtomicBoolean waiting = new AtomicBoolean();
+
+    /**
+     * the player name if the player has provided one
+     */
+    private volatile String playerName;
+
+    /**
+     * the id of this player's session, never reused or changed while the server runs
+     */
+    private final long sessionId;
+
+    /**
+     * the room this player is in, null before they join one
+     */
+    private volatile GameRoom room;
+
+    /**
+     * the score of the player
+     */
+    private volatile double score = 0.0;
+
+    /**
+     * the id of the last round this player answered or was let off
+     */
+    private final AtomicInteger answeredRound = new AtomicInteger();
+
+    /**
+     * the id of the last round this player was let off because they were suspended
+     */
+    private volatile int letOffRound;
+
+    /**
+     * when the last question finished being written to this player's socket, from {@link System#nanoTime()}
+     */
+    private volatile long questionSentAt;
+
+    /**
+     * how long this player has taken to answer this game
+     */
+    private final AnswerTimes answerTimes = new AnswerTimes();
+
+    /**
+     * how many answers this player has got right this game, for their lifetime stats
+     */
+    private final AnswerTally tally = new AnswerTally();
+
+    /**
+     * constructor for a player
+     * @param server the server the player connected to
+     * @param connection the connection to the player
+     * @param sessionId the id of this player's session
+     */
+    public Player(GameServer server, Connection connection, long sessionId){
+        this(server, connection, sessionId, null);
+    }
+
+    /**
+     * constructor for a player whose session can be resumed
+     * @param server the server the player connected to
+     * @param connection the connection to the player
+     * @param sessionId the id of this player's session
+     * @param token the token that resumes the session, null if it can not be resumed
+     */
+    public Player(GameServer server, Connection connection, long sessionId, String token){
+        this.server = server;
+        this.sessionId = sessionId;
+        this.connection = connection;
+        this.token = token;
+        this.playerName = "";
+    }
+
+    /**
+     * handles one frame from this player
+     * @param received the frame
+     * @throws IOException if the frame is malformed, the transport then closes the connection
+     */
+    public void onFrame(Frame received) throws IOException {
+        if (waiting.get()) { // the first frame decides whether this is a new player or a resumed one
+            if (received.getType() == Protocol.RESUME) {
+                server.resume(this, Protocol.decodeText(received));
+                return;
+            }
+            server.place(this);
+        }
+        switch (received.getType()) { // checks if the player sends a name, changes rooms or starts the game
+            case Protocol.NAME: // clients send their player name
+                playerName = Protocol.decodeText(received);
+                break;
+            case Protocol.JOIN: // clients can move to a named room before their game starts
+                server.joinRoom(this, Protocol.decodeText(received));
+                break;
+            case Protocol.START: // signal to start game
+                room.startGame();
+                break;
+            case Protocol.ANSWER: // after game has started, clients send their raw answers for the server to score
+                room.answer(this, Protocol.decodeRoundId(received), Protocol.decodeAnswer(received), received.getReceivedAt());
+                break;
+            case Protocol.RESUME: // clients whose connection dropped send the token of their old session first
+                server.resume(this, Protocol.decodeText(received));
+                break;
+            case Protocol.MEDIA_REQUEST: // clients ask for the media of a question when they do not have it cached
+                server.getMedia().sendChunks(this, Protocol.decodeMediaHash(received), Protocol.decodeMediaRequestChunk(received));
+                break;
+            default:
+                server.displayMessage("Unknown message type " + received.getType() + " from player " + sessionId + "\n");
+                break;
+        }
+    }
+
+    /**
+     * holds this player out of the open lobby until their first frame or {@link GameServer#place(Player)}
+     */
+    void startWaiting() {
+        waiting.set(true);
+    }
+
+    /**
+     * ends the wait for the first frame, only one caller wins
+     * @return true if this call ended it, false if the player was never waiting or another call got there first
+     */
+    boolean stopWaiting() {
+        return waiting.compareAndSet(true, false);
+    }
+
+    /**
+     * called by the transport once a connection has closed
+     * a connection this player has already moved off, because the session was resumed on another, is ignored
+     * @param closed the connection that closed
+     */
+    public void onClose(Connection closed) {
+        if (closed != connection) {
+            return;
+        }
+        server.displayMessage("player " + sessionId + " disconnected, most frames queued was " + getMaxQueueDepth()
+                + ", frames dropped " + getDroppedFrames() + "\n");
+        server.suspend(this, closed);
+    }
+
+    /**
+     * suspends this player after their connection closed
+     * @param closed the connection that closed
+     * @param expiry forgets the player if the session is not resumed in time, cancelled if this call fails
+     * @return true if the player was suspended, false if they had already moved to another connection or gone
+     */
+    synchronized boolean suspend(Connection closed, HashedWheelTimer.Timeout expiry) {
+        if (state != CONNECTED || closed != connection) {
+            expiry.cancel();
+            return false;
+        }
+        state = SUSPENDED;
+        this.expiry = expiry;
+        return true;
+    }
+
+    /**
+     * moves this player onto a new connection, closing the old one if it is somehow still open
+     * @param replacement the new connection
+     * @return true if the player now uses it, false if the session has already expired
+     */
+    boolean resume(Connection replacement) {
+        Connection old;
+        synchronized (this) {
+            if (state == GONE) {
+                return false;
+            }
+            old = state == CONNECTED ? connection : null;
+            connection = replacement; // set first so the old connection's close is ignored
+            if (expiry != null) {
+                expiry.cancel();
+                expiry = null;
+            }
+            state = CONNECTED;
+        }
+        if (old != null) {
+            old.close(); // the same player connecting twice, the newer connection wins, closed outside the lock since it can block on the socket
+        }
+        return true;
+    }
+
+    /**
+     * marks this player as gone for good once a connection closed and the session can not be resumed
+     * @param closed the connection that closed
+     * @param suspendedOnly only if the player is still suspended from {closed}, for an expiry that may have lost to a resume
+     * @return true if this call marked them gone
+     */
+    synchronized boolean markGone(Connection closed, boolean suspendedOnly) {
+        if (state == GONE || closed != connection || (suspendedOnly && state != SUSPENDED)) {
+            return false;
+        }
+        state = GONE;
+        expiry = null;
+        return true;
+    }
+
+    /**
+     * getter for whether this player's connection has dropped and they are waiting to resume
+     * @return true if suspended
+     */
+    public synchronized boolean isSuspended() {
+        return state == SUSPENDED;
+    }
+
+    /**
+     * send an encoded frame to this player
+     * @param send the frame to send, shared with other players, see {@link Protocol#share(byte[])}
+     */
+    public void sendData(ByteBuffer send){
+        connection.send(send);
+    }
+
+    /**
+     * sends a message to display to this player
+     * @param message the message to send
+     */
+    public void sendMessage(String message){
+        sendData(Protocol.share(Protocol.encodeText(Protocol.TEXT, message)));
+    }
+
+    /**
+     * called by the transport as soon as a question has been written to this player's socket
+     * @param writtenAt when the last byte was written, from {@link System#nanoTime()}
+     */
+    public void onQuestionWritten(long writtenAt) {
+        questionSentAt = writtenAt;
+    }
+
+    /**
+     * getter for when the last question finished being written to this player
+     * @return the time from {@link System#nanoTime()}, 0 if no question has been written yet
+     */
+    public long getQuestionSentAt() {
+        return questionSentAt;
+    }
+
+    /**
+     * getter for how long this player has taken to answer this game
+     * @return the answer times
+     */
+    public AnswerTimes getAnswerTimes() {
+        return answerTimes;
+    }
+
+    /**
+     * getter for how many answers this player has got right this game
+     * @return the tally
+     */
+    public AnswerTally getTally() {
+        return tally;
+    }
+
+    /**
+     * getter for how many frames are waiting to be written to this player
+     * @return the outbound queue depth
+     */
+    public int getQueueDepth() {
+        return connection.getOutboundQueue().getDepth();
+    }
+
+    /**
+     * getter for the most frames that have waited for this player at once
+     * @return the highest outbound queue depth seen
+     */
+    public int getMaxQueueDepth() {
+        return connection.getOutboundQueue().getMaxDepth();
+    }
+
+    /**
+     * getter for how many frames to this player were thrown away because their queue was full
+     * @return the number of frames dropped
+     */
+    public long getDroppedFrames() {
+        return connection.getOutboundQueue().getDropped();
+    }
+
+    /**
+     * closes the connection to this player, {@link #onClose(Connection)} follows once the transport notices
+     */
+    public void closeConnection() {
+        connection.close();
+    }
+
+    /**
+     * getter for player name
+     * @return the players name
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * setter for player name, for a player restored from the journal
+     * @param playerName the name
+     */
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+
+    /**
+     * getter for the room this player is in
+     * @return the room, null if they have not joined one
+     */
+    public GameRoom getRoom() {
+        return room;
+    }
+
+    /**
+     * setter for the room this player is in
+     * @param room the room
+     */
+    public void setRoom(GameRoom room) {
+        this.room = room;
+    }
+
+    /**
+     * getter for the score of this player
+     * @return the score of this player
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * setter for the score of this player
+     * @param score the new score
+     */
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    /**
+     * getter for weather this player has answered a round
+     * @param roundId the round
+     * @return true if player has answered the round false otherwise
+     */
+    public boolean hasAnswered(int roundId){
+        return answeredRound.get() >= roundId;
+    }
+
+    /**
+     * marks this player as having answered a round
+     * @param roundId the round
+     * @return true if this call marked it, false if they had already answered it
+     */
+    public boolean markAnswered(int roundId) {
+        while (true) {
+            int last = answeredRound.get();
+            if (last >= roundId) {
+                return false;
+            }
+            if (answeredRound.compareAndSet(last, roundId)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * takes back the mark for a round this player was let off, so they can still answer it after resuming
+     * @param roundId the round
+     */
+    public void unmarkAnswered(int roundId) {
+        answeredRound.compareAndSet(roundId, roundId - 1);
+    }
+
+    /**
+     * notes that this player was let off a round instead of answering it
+     * @param roundId the round
+     */
+    public void letOff(int roundId) {
+        letOffRound = roundId;
+    }
+
+    /**
+     * getter for whether this player was let off a round because they were suspended
+     * @param roundId the round
+     * @return true if they were let off rather than answering
+     */
+    public boolean wasLetOff(int roundId) {
+        return letOffRound == roundId;
+    }
+
+    /**
+     * getter for the connection this player's frames go to
+     * @return the connection
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * getter for the token that resumes this player's session
+     * @return the token, null if the session can not be resumed
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * getter for the session id of this player
+     * @return the session id
+     */
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * compares two players based on their score, ties go to the lower session id
+     * @param player the other player to compare to
+     * @return 0 if they are the same player, 1 if the other player is ahead, -1 otherwise
+     */
+    @Override
+    public int compareTo(Player player) {
+        int order = Double.compare(player.getScore(), score); // higher scores first
+        return order != 0 ? order : Long.compare(sessionId, player.getSessionId());
+    }
+}
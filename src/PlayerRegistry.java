@@ -0,0 +1,148 @@
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * a thread safe set of players keyed by their session id
+ * adding and removing are O(1): players sit in an array and a removed player's slot is filled by the last one
+ * iteration goes over an immutable snapshot, so a player leaving mid broadcast never skips or breaks anyone
+ * the snapshot is only rebuilt the first time it is asked for after a change
+ */
+public class PlayerRegistry {
+
+    /**
+     * the snapshot of an empty registry
+     */
+    private static final Player[] NONE = new Player[0];
+
+    /**
+     * guards players, size and slots
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * the players, packed into the first size slots
+     */
+    private Player[] players = new Player[8];
+
+    /**
+     * how many players there are
+     */
+    private volatile int size;
+
+    /**
+     * each player's index in players, by session id
+     */
+    private final HashMap<Long, Integer> slots = new HashMap<>();
+
+    /**
+     * the current snapshot, null when it needs rebuilding
+     */
+    private volatile Player[] snapshot = NONE;
+
+    /**
+     * adds a player
+     * @param player the player to add
+     * @return false if a player with the same session id is already here
+     */
+    public boolean add(Player player) {
+        lock.lock();
+        try {
+            Long id = player.getSessionId();
+            if (slots.containsKey(id)) {
+                return false;
+            }
+            if (size == players.length) {
+                Player[] bigger = new Player[players.length * 2];
+                System.arraycopy(players, 0, bigger, 0, size);
+                players = bigger;
+            }
+            players[size] = player;
+            slots.put(id, size);
+            size++;
+            snapshot = null;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * removes a player
+     * @param player the player to remove
+     * @return false if they were not here
+     */
+    public boolean remove(Player player) {
+        lock.lock();
+        try {
+            Integer slot = slots.remove(player.getSessionId());
+            if (slot == null) {
+                return false;
+            }
+            int last = size - 1;
+            if (slot != last) { // moves the last player into the gap instead of shifting everyone down
+                players[slot] = players[last];
+                slots.put(players[slot].getSessionId(), slot);
+            }
+            players[last] = null;
+            size = last;
+            snapshot = null;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * looks up a player by session id
+     * @param sessionId the id
+     * @return the player, or null if they are not here
+     */
+    public Player get(long sessionId) {
+        lock.lock();
+        try {
+            Integer slot = slots.get(sessionId);
+            return slot == null ? null : players[slot];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * checks if a player is here
+     * @param player the player
+     * @return true if they are here
+     */
+    public boolean contains(Player player) {
+        return get(player.getSessionId()) == player;
+    }
+
+    /**
+     * getter for how many players are here
+     * @return the number of players
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * gets every player as of now, the array is shared and must not be changed
+     * @return the players, in no particular order
+     */
+    public Player[] snapshot() {
+        Player[] current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.lock();
+        try {
+            if (snapshot == null) {
+                Player[] copy = new Player[size];
+                System.arraycopy(players, 0, copy, 0, size);
+                snapshot = copy;
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
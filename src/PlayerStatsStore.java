@@ -0,0 +1,518 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * every player's lifetime stats by name, kept on disk so they survive restarts
+ * the stats are fixed size records in a memory mapped file, found through an open addressing hash table in a
+ * second memory mapped file, so a lookup or update is a hash, a probe or two and a few reads and writes
+ * straight to the mapping, with nothing on the heap for each player however many there are
+ * the table doubles once it is three quarters full, and is rebuilt from the records if it does not match them
+ * after a crash
+ * once started every write, doubling and force runs in turn on one writer thread, so games only queue their
+ * results and never wait on the files, see {@link #recordGameLater(String, double, AnswerTally)}
+ * names are compared as they are typed, names longer than {@value #MAX_NAME_CHARS} characters are not kept
+ * a store made without a folder keeps nothing
+ */
+public class PlayerStatsStore {
+
+    /**
+     * the longest name kept
+     */
+    public static final int MAX_NAME_CHARS = 31;
+
+    /**
+     * the first bytes of both files
+     */
+    private static final int MAGIC = 0x54525331;
+
+    /**
+     * how many bytes each file starts with, the magic then the number of records
+     */
+    private static final int HEADER_BYTES = 64;
+
+    /**
+     * how big each record is, the name's length and characters then the stats
+     */
+    private static final int RECORD_BYTES = 96;
+
+    /**
+     * where in a record the number of games is
+     */
+    private static final int GAMES = 64;
+
+    /**
+     * where in a record the number of right answers is
+     */
+    private static final int CORRECT = 72;
+
+    /**
+     * where in a record the total score is
+     */
+    private static final int TOTAL_SCORE = 80;
+
+    /**
+     * where in a record the best run of right answers is
+     */
+    private static final int BEST_STREAK = 88;
+
+    /**
+     * where in a record the run of right answers still going is
+     */
+    private static final int STREAK = 92;
+
+    /**
+     * how many records are mapped at a time, as a power of two so a record finds its chunk with a shift
+     */
+    private static final int CHUNK_SHIFT = 19;
+
+    /**
+     * how many records are mapped at a time
+     */
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+
+    /**
+     * the smallest hash table, in slots
+     */
+    private static final int MIN_SLOTS = 1 << 16;
+
+    /**
+     * the file of records
+     */
+    private final Path recordFile;
+
+    /**
+     * the file of the hash table
+     */
+    private final Path indexFile;
+
+    /**
+     * the channel the record chunks are mapped from, kept open to map more as the file grows
+     */
+    private final FileChannel records;
+
+    /**
+     * the start of the record file, with the number of records
+     */
+    private final MappedByteBuffer recordHeader;
+
+    /**
+     * the record chunks mapped so far, chunk i holds records i * {@value #CHUNK_RECORDS} on
+     */
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    /**
+     * the hash table, each slot a long with the name's hash in the high half and the record number plus one in
+     * the low half, 0 for an empty slot
+     */
+    private MappedByteBuffer index;
+
+    /**
+     * how many slots the hash table has, a power of two
+     */
+    private int slots;
+
+    /**
+     * how many records there are
+     */
+    private int count;
+
+    /**
+     * set when something has changed since the mappings were last forced to disk
+     */
+    private volatile boolean dirty;
+
+    /**
+     * runs every write and force in turn, null until the store is started
+     */
+    private volatile ScheduledExecutorService writer;
+
+    /**
+     * constructor for a store that keeps nothing
+     */
+    public PlayerStatsStore() {
+        this.recordFile = null;
+        this.indexFile = null;
+        this.records = null;
+        this.recordHeader = null;
+    }
+
+    /**
+     * constructor for a store, opening the files in a folder or making them if they are not there
+     * @param directory the folder to keep the files in, made if it is missing
+     * @throws IOException if the files can not be read or made, or are not stats files
+     */
+    public PlayerStatsStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        recordFile = directory.resolve("player-stats.dat");
+        indexFile = directory.resolve("player-stats.idx");
+        records = FileChannel.open(recordFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recordHeader = records.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (recordHeader.getInt(0) == 0) { // a new file
+            recordHeader.putInt(0, MAGIC);
+        } else if (recordHeader.getInt(0) != MAGIC) {
+            throw new IOException(recordFile + " is not a player stats file");
+        }
+        count = recordHeader.getInt(4);
+        if (!openIndex()) {
+            rebuildIndex(slotsFor(count));
+        }
+    }
+
+    /**
+     * starts the writer thread, which also forces the files to disk every so often, does nothing for a store that
+     * keeps nothing
+     * @param millis how often to force, in milliseconds
+     */
+    public void start(long millis) {
+        if (records == null) {
+            return;
+        }
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stats-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(() -> {
+            if (dirty) {
+                force();
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+        writer = started;
+    }
+
+    /**
+     * adds a finished game to a player's lifetime stats on the writer thread, or straight away if it was never started
+     * @param name the player's name
+     * @param score their score in the game
+     * @param tally their right answers in the game, copied so their next game can reset it
+     * @return completes with their lifetime stats for people to read, or null if the name is not kept, or fails
+     * if the files can not grow
+     */
+    public CompletableFuture<String> recordGameLater(String name, double score, AnswerTally tally) {
+        CompletableFuture<String> done = new CompletableFuture<>();
+        ScheduledExecutorService running = writer;
+        if (running == null) {
+            record(done, name, score, tally);
+        } else {
+            AnswerTally game = tally.copy();
+            running.execute(() -> record(done, name, score, game));
+        }
+        return done;
+    }
+
+    /**
+     * adds a finished game to a player's lifetime stats and completes a future with the result
+     * @param done the future to complete
+     * @param name the player's name
+     * @param score their score in the game
+     * @param tally their right answers in the game
+     */
+    private void record(CompletableFuture<String> done, String name, double score, AnswerTally tally) {
+        try {
+            done.complete(recordGame(name, score, tally));
+        } catch (IOException | IllegalStateException e) {
+            done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * adds a finished game to a player's lifetime stats
+     * @param name the player's name
+     * @param score their score in the game
+     * @param tally their right answers in the game
+     * @return their lifetime stats for people to read, or null if the name is not kept
+     * @throws IOException if the files can not grow
+     */
+    public synchronized String recordGame(String name, double score, AnswerTally tally) throws IOException {
+        if (records == null || name.isEmpty() || name.length() > MAX_NAME_CHARS) {
+            return null;
+        }
+        int hash = hash(name);
+        int record = find(name, hash);
+        if (record < 0) {
+            record = insert(name, hash);
+        }
+        MappedByteBuffer chunk = chunk(record);
+        int at = offset(record);
+        int streak = chunk.getInt(at + STREAK);
+        chunk.putLong(at + GAMES, chunk.getLong(at + GAMES) + 1);
+        chunk.putLong(at + CORRECT, chunk.getLong(at + CORRECT) + tally.getCorrect());
+        chunk.putDouble(at + TOTAL_SCORE, Math.round((chunk.getDouble(at + TOTAL_SCORE) + score) * 1000) / 1000.0);
+        chunk.putInt(at + BEST_STREAK, tally.bestAfter(streak, chunk.getInt(at + BEST_STREAK)));
+        chunk.putInt(at + STREAK, tally.streakAfter(streak));
+        dirty = true;
+        return describe(record);
+    }
+
+    /**
+     * describes a player's lifetime stats
+     * @param name the player's name
+     * @return their stats for people to read, or null if there are none
+     */
+    public synchronized String describe(String name) {
+        if (records == null || name.isEmpty() || name.length() > MAX_NAME_CHARS) {
+            return null;
+        }
+        int record = find(name, hash(name));
+        return record < 0 ? null : describe(record);
+    }
+
+    /**
+     * getter for how many players have stats
+     * @return the number of players
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * forces both files to disk
+     */
+    public synchronized void force() {
+        if (records == null) {
+            return;
+        }
+        dirty = false;
+        recordHeader.force();
+        for (MappedByteBuffer chunk : chunks) {
+            if (chunk != null) { // only chunks that have been used are mapped
+                chunk.force();
+            }
+        }
+        index.force();
+    }
+
+    /**
+     * describes the stats in one record
+     * @param record the record number
+     * @return the stats for people to read
+     */
+    private String describe(int record) {
+        MappedByteBuffer chunk = chunk(record);
+        int at = offset(record);
+        return chunk.getLong(at + GAMES) + " game(s), " + chunk.getLong(at + CORRECT) + " right answer(s), total score "
+                + chunk.getDouble(at + TOTAL_SCORE) + ", best streak " + chunk.getInt(at + BEST_STREAK);
+    }
+
+    /**
+     * looks a name up in the hash table
+     * @param name the name
+     * @param hash its hash
+     * @return its record number, or -1 if it has no record
+     */
+    private int find(String name, int hash) {
+        int mask = slots - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long entry = index.getLong(HEADER_BYTES + slot * 8);
+            if (entry == 0) {
+                return -1;
+            }
+            if ((int) (entry >>> 32) == hash && nameEquals((int) entry - 1, name)) {
+                return (int) entry - 1;
+            }
+        }
+    }
+
+    /**
+     * adds a record for a new name, growing the hash table first if it is getting full
+     * @param name the name
+     * @param hash its hash
+     * @return the new record number
+     * @throws IOException if the files can not grow
+     */
+    private int insert(String name, int hash) throws IOException {
+        if ((count + 1) * 4L > slots * 3L) {
+            rebuildIndex(slots * 2);
+        }
+        int record = count;
+        MappedByteBuffer chunk = chunk(record);
+        int at = offset(record);
+        chunk.putShort(at, (short) name.length());
+        for (int i = 0; i < name.length(); i++) {
+            chunk.putChar(at + 2 + i * 2, name.charAt(i));
+        }
+        count = record + 1;
+        recordHeader.putInt(4, count); // the record is only counted once it is written
+        place(index, slots, hash, record);
+        index.putInt(4, count);
+        return record;
+    }
+
+    /**
+     * puts a record in the first empty slot from its hash on
+     * @param table the hash table
+     * @param size how many slots it has
+     * @param hash the hash of the record's name
+     * @param record the record number
+     */
+    private static void place(MappedByteBuffer table, int size, int hash, int record) {
+        int mask = size - 1;
+        int slot = hash & mask;
+        while (table.getLong(HEADER_BYTES + slot * 8) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.putLong(HEADER_BYTES + slot * 8, (long) hash << 32 | (record + 1L));
+    }
+
+    /**
+     * maps the hash table file if it is there and matches the records
+     * @return true if it was mapped, false if it has to be rebuilt
+     * @throws IOException if the file can not be read
+     */
+    private boolean openIndex() throws IOException {
+        if (!Files.exists(indexFile) || Files.size(indexFile) < HEADER_BYTES + MIN_SLOTS * 8L) {
+            return false;
+        }
+        int size = (int) ((Files.size(indexFile) - HEADER_BYTES) / 8);
+        if (Integer.bitCount(size) != 1) {
+            return false;
+        }
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + size * 8L);
+        }
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != count) { // the server stopped part way through adding a player
+            return false;
+        }
+        index = mapped;
+        slots = size;
+        return true;
+    }
+
+    /**
+     * builds the hash table again from the records, into a new file that then replaces the old one
+     * @param size how many slots the new table has, a power of two
+     * @throws IOException if the file can not be written
+     */
+    private void rebuildIndex(int size) throws IOException {
+        Path building = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        MappedByteBuffer table;
+        try (FileChannel channel = FileChannel.open(building, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            table = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + size * 8L);
+        }
+        for (int record = 0; record < count; record++) {
+            place(table, size, hash(chunk(record), offset(record)), record);
+        }
+        table.putInt(0, MAGIC);
+        table.putInt(4, count);
+        table.force();
+        Files.move(building, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = table; // the mapping follows the file through the rename
+        slots = size;
+    }
+
+    /**
+     * works out how many slots a table needs for some records
+     * @param records the number of records
+     * @return a power of two keeping the table under three quarters full
+     */
+    private static int slotsFor(int records) {
+        int size = MIN_SLOTS;
+        while ((records + 1) * 4L > size * 3L) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * gets the chunk a record is in, mapping it if it is the first time it is needed
+     * @param record the record number
+     * @return the chunk
+     */
+    private MappedByteBuffer chunk(int record) {
+        int number = record >>> CHUNK_SHIFT;
+        if (number >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, number + 1);
+        }
+        if (chunks[number] == null) {
+            try {
+                chunks[number] = records.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_BYTES + (long) number * CHUNK_RECORDS * RECORD_BYTES, (long) CHUNK_RECORDS * RECORD_BYTES);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map " + recordFile + ": " + e.getMessage(), e);
+            }
+        }
+        return chunks[number];
+    }
+
+    /**
+     * where a record starts in its chunk
+     * @param record the record number
+     * @return the offset
+     */
+    private static int offset(int record) {
+        return (record & (CHUNK_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    /**
+     * checks whether a record is for a name
+     * @param record the record number
+     * @param name the name
+     * @return true if the record holds exactly that name
+     */
+    private boolean nameEquals(int record, String name) {
+        MappedByteBuffer chunk = chunk(record);
+        int at = offset(record);
+        if (chunk.getShort(at) != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (chunk.getChar(at + 2 + i * 2) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * hashes a name, FNV-1a over its characters then mixed so nearby names land far apart
+     * @param name the name
+     * @return the hash
+     */
+    private static int hash(String name) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x01000193;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * hashes the name stored in a record, the same as {@link #hash(String)} would
+     * @param chunk the chunk the record is in
+     * @param at where the record starts
+     * @return the hash
+     */
+    private static int hash(MappedByteBuffer chunk, int at) {
+        int hash = 0x811c9dc5;
+        int length = chunk.getShort(at);
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ chunk.getChar(at + 2 + i * 2)) * 0x01000193;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * the last step of MurmurHash3, spreads every bit of a hash over the others
+     * @param hash the hash
+     * @return the mixed hash
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,539 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * the binary wire protocol between the client and the server
+ * every message is a frame: a 4 byte length, then a 1 byte type, then the payload
+ * the length counts the type byte and the payload
+ * strings are a 2 byte unsigned length followed by that many bytes of UTF-8
+ */
+public final class Protocol {
+
+    /**
+     * client to server, payload is the player name
+     */
+    public static final byte NAME = 1;
+
+    /**
+     * client to server, no payload, starts the game
+     */
+    public static final byte START = 2;
+
+    /**
+     * client to server, payload is the round being answered and the player's raw answer, see {@link #encodeAnswer(int, String[])}
+     */
+    public static final byte ANSWER = 3;
+
+    /**
+     * server to client, payload is a message to display
+     */
+    public static final byte TEXT = 4;
+
+    /**
+     * server to client, payload is the round answering it and a question without its answers, see {@link #encodeQuestion(int, QuestionData)}
+     */
+    public static final byte QUESTION = 5;
+
+    /**
+     * server to client, payload is the points given for the last answer as a double
+     */
+    public static final byte SCORE = 6;
+
+    /**
+     * client to server, payload is the name of the room to join
+     */
+    public static final byte JOIN = 7;
+
+    /**
+     * client to server, payload is the hash of a media file and the first chunk wanted, see {@link #encodeMediaRequest(String, int)}
+     * the server answers with up to {@link #MEDIA_WINDOW} chunks
+     */
+    public static final byte MEDIA_REQUEST = 8;
+
+    /**
+     * server to client, payload is one chunk of a media file, see {@link #encodeMediaChunk(String, byte[], int)}
+     */
+    public static final byte MEDIA_CHUNK = 9;
+
+    /**
+     * server to client, payload is the token for the player's session and how many seconds a dropped connection
+     * has to resume it, see {@link #encodeSession(String, int)}
+     */
+    public static final byte SESSION = 10;
+
+    /**
+     * client to server, payload is a session token, sent first on a new connection to take back a dropped seat
+     */
+    public static final byte RESUME = 11;
+
+    /**
+     * how many bytes of a media file each chunk carries, the last chunk may carry fewer
+     */
+    public static final int MEDIA_CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * how many chunks the server sends for one request, so a big file never fills a player's queue
+     */
+    public static final int MEDIA_WINDOW = 8;
+
+    /**
+     * the largest media file that can be sent
+     */
+    public static final int MAX_MEDIA_LENGTH = 16 << 20;
+
+    /**
+     * the size of the length field at the start of every frame
+     */
+    public static final int HEADER_LENGTH = 4;
+
+    /**
+     * the largest frame length accepted, anything bigger is treated as a broken stream
+     */
+    public static final int MAX_FRAME_LENGTH = 1 << 20;
+
+    /**
+     * the question types by their wire index, cached since values() copies the array every call
+     */
+    private static final QuestionType[] QUESTION_TYPES = QuestionType.values();
+
+    /**
+     * the longest string that fits in a string field
+     */
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    /**
+     * no instances, only static helpers
+     */
+    private Protocol() {
+    }
+
+    /**
+     * encodes a frame with no payload
+     * @param type the message type
+     * @return the whole frame, ready to write
+     */
+    public static byte[] encodeEmpty(byte type) {
+        return ByteBuffer.allocate(HEADER_LENGTH + 1).putInt(1).put(type).array();
+    }
+
+    /**
+     * encodes a frame with a single string payload
+     * @param type the message type
+     * @param text the string to send
+     * @return the whole frame, ready to write
+     */
+    public static byte[] encodeText(byte type, String text) {
+        byte[] bytes = utf8(text);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + 1 + 2 + bytes.length);
+        buffer.putInt(1 + 2 + bytes.length).put(type).putShort((short) bytes.length).put(bytes);
+        return buffer.array();
+    }
+
+    /**
+     * encodes a session frame
+     * @param token the token that resumes the session
+     * @param resumeSeconds how long a dropped connection has to resume, 0 if sessions can not be resumed
+     * @return the whole frame, ready to write
+     */
+    public static byte[] encodeSession(String token, int resumeSeconds) {
+        byte[] bytes = utf8(token);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + 1 + 2 + bytes.length + 4);
+        buffer.putInt(1 + 2 + bytes.length + 4).put(SESSION).putShort((short) bytes.length).put(bytes).putInt(resumeSeconds);
+        return buffer.array();
+    }
+
+    /**
+     * encodes a frame with a single double payload
+     * @param type the message type
+     * @param value the number to send
+     * @return the whole frame, ready to write
+     */
+    public static byte[] encodeDouble(byte type, double value) {
+        return ByteBuffer.allocate(HEADER_LENGTH + 1 + 8).putInt(1 + 8).put(type).putDouble(value).array();
+    }
+
+    /**
+     * encodes a question frame
+     * the correct answers are left out, the server does the scoring so clients never need them
+     * @param roundId the round answering the question, clients send it back with their answer
+     * @param question the question to send
+     * @return the whole frame, ready to write
+     */
+    public static byte[] encodeQuestion(int roundId, QuestionData question) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // length, filled in below
+            out.writeByte(QUESTION);
+            out.writeInt(roundId);
+            out.writeByte(question.getType().ordinal());
+            writeString(out, question.getQuestionDescription());
+            writeString(out, question.getQuestionPrompt());
+            out.writeByte(question.getChoiceCount());
+            for (int i = 0; i < question.getChoiceCount(); i++) {
+                writeString(out, question.getChoice(i));
+            }
+            out.writeByte(question.getBlanksNum());
+            writeString(out, question.getFileName());
+            writeString(out, question.getMediaHash());
+
+            byte[] frame = bytes.toByteArray();
+            ByteBuffer.wrap(frame).putInt(frame.length - HEADER_LENGTH);
+            return frame;
+        } catch (IOException e) { // cannot happen when writing to memory
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * encodes a request for some chunks of a media file
+     * @param hash the content hash of the file
+     * @param firstChunk the index of the first chunk wanted
+     * @return the whole frame, ready to write
+     */
+    public static byte[] encodeMediaRequest(String hash, int firstChunk) {
+        byte[] bytes = utf8(hash);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + 1 + 2 + bytes.length + 4);
+        buffer.putInt(1 + 2 + bytes.length + 4).put(MEDIA_REQUEST).putShort((short) bytes.length).put(bytes).putInt(firstChunk);
+        return buffer.array();
+    }
+
+    /**
+     * encodes one chunk of a media file
+     * @param hash the content hash of the file
+     * @param file the whole file
+     * @param index which chunk, each holds {@link #MEDIA_CHUNK_SIZE} bytes
+     * @return the whole frame, ready to write
+     */
+    public static byte[] encodeMediaChunk(String hash, byte[] file, int index) {
+        byte[] bytes = utf8(hash);
+        int offset = index * MEDIA_CHUNK_SIZE;
+        int length = Math.min(MEDIA_CHUNK_SIZE, file.length - offset);
+        int frameLength = 1 + 2 + bytes.length + 4 + 4 + length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + frameLength);
+        buffer.putInt(frameLength).put(MEDIA_CHUNK).putShort((short) bytes.length).put(bytes)
+                .putInt(file.length).putInt(index).put(file, offset, length);
+        return buffer.array();
+    }
+
+    /**
+     * gives the content hash a media file is known by, SHA-256 as lower case hex
+     * @param file the whole file
+     * @return the hash
+     */
+    public static String mediaHash(byte[] file) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(file);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) { // every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * checks that a string looks like a hash made by {@link #mediaHash(byte[])}, so it is safe to use as a file name
+     * @param hash the string
+     * @return true if it is 64 lower case hex digits
+     */
+    public static boolean isMediaHash(String hash) {
+        if (hash.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * wraps an encoded frame so it can be handed to many connections without being copied or changed
+     * each connection writes from its own {@link ByteBuffer#duplicate()}, so positions never clash
+     * @param frame the encoded frame
+     * @return a read only buffer over the frame
+     */
+    public static ByteBuffer share(byte[] frame) {
+        return ByteBuffer.wrap(frame).asReadOnlyBuffer();
+    }
+
+    /**
+     * encodes an answer frame
+     * @param roundId the round of the question being answered, as it came in the question frame
+     * @param response the raw answer, one string for short answer and multiple choice, one per blank for fill in the blank
+     * @return the whole frame, ready to write
+     */
+    public static byte[] encodeAnswer(int roundId, String[] response) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // length, filled in below
+            out.writeByte(ANSWER);
+            out.writeInt(roundId);
+            out.writeByte(response.length);
+            for (String part : response) {
+                writeString(out, part == null ? "" : part);
+            }
+
+            byte[] frame = bytes.toByteArray();
+            ByteBuffer.wrap(frame).putInt(frame.length - HEADER_LENGTH);
+            return frame;
+        } catch (IOException e) { // cannot happen when writing to memory
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * checks whether an encoded frame is a question, so transports can note when each player was sent one
+     * @param frame the whole frame, starting at index 0 as {@link #share(byte[])} makes it
+     * @return true if it is a question
+     */
+    public static boolean isQuestion(ByteBuffer frame) {
+        return frame.limit() > HEADER_LENGTH && frame.get(HEADER_LENGTH) == QUESTION;
+    }
+
+    /**
+     * writes an encoded frame and flushes it
+     * @param out the stream to write to
+     * @param frame the encoded frame
+     * @throws IOException if the write fails
+     */
+    public static void writeFrame(DataOutputStream out, byte[] frame) throws IOException {
+        out.write(frame);
+        out.flush();
+    }
+
+    /**
+     * reads the next frame, blocking until the whole frame is there
+     * @param in the stream to read from
+     * @return the frame
+     * @throws IOException if the stream fails, ends or has a bad length
+     */
+    public static Frame readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return new Frame(data[0], ByteBuffer.wrap(data, 1, length - 1).slice());
+    }
+
+    /**
+     * checks that a frame length read off the wire is usable
+     * @param length the length to check
+     * @throws IOException if the length is out of range
+     */
+    public static void checkLength(int length) throws IOException {
+        if (length < 1 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Bad frame length " + length);
+        }
+    }
+
+    /**
+     * decodes a string payload
+     * @param frame a frame made by {@link #encodeText(byte, String)}
+     * @return the string
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static String decodeText(Frame frame) throws ProtocolException {
+        return readString(frame.getPayload());
+    }
+
+    /**
+     * decodes how long a session can be resumed, the token is read with {@link #decodeText(Frame)}
+     * @param frame a frame made by {@link #encodeSession(String, int)}
+     * @return the number of seconds
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static int decodeResumeSeconds(Frame frame) throws ProtocolException {
+        ByteBuffer payload = frame.getPayload();
+        skipString(payload);
+        need(payload, 4);
+        return payload.getInt();
+    }
+
+    /**
+     * decodes a double payload
+     * @param frame a frame made by {@link #encodeDouble(byte, double)}
+     * @return the number
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static double decodeDouble(Frame frame) throws ProtocolException {
+        ByteBuffer payload = frame.getPayload();
+        need(payload, 8);
+        return payload.getDouble();
+    }
+
+    /**
+     * decodes the round id at the start of a question or answer payload
+     * @param frame a frame made by {@link #encodeQuestion(int, QuestionData)} or {@link #encodeAnswer(int, String[])}
+     * @return the round id
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static int decodeRoundId(Frame frame) throws ProtocolException {
+        ByteBuffer payload = frame.getPayload();
+        need(payload, 4);
+        return payload.getInt();
+    }
+
+    /**
+     * decodes an answer payload
+     * @param frame a frame made by {@link #encodeAnswer(int, String[])}
+     * @return the raw answer
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static String[] decodeAnswer(Frame frame) throws ProtocolException {
+        ByteBuffer payload = frame.getPayload();
+        need(payload, 5);
+        payload.getInt(); // the round id, see decodeRoundId
+
+        String[] response = new String[payload.get() & 0xFF];
+        for (int i = 0; i < response.length; i++) {
+            response[i] = readString(payload);
+        }
+        return response;
+    }
+
+    /**
+     * decodes the media hash at the start of a media request or chunk
+     * @param frame a frame made by {@link #encodeMediaRequest(String, int)} or {@link #encodeMediaChunk(String, byte[], int)}
+     * @return the hash
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static String decodeMediaHash(Frame frame) throws ProtocolException {
+        return readString(frame.getPayload());
+    }
+
+    /**
+     * decodes the first chunk wanted by a media request
+     * @param frame a frame made by {@link #encodeMediaRequest(String, int)}
+     * @return the chunk index
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static int decodeMediaRequestChunk(Frame frame) throws ProtocolException {
+        ByteBuffer payload = frame.getPayload();
+        skipString(payload);
+        need(payload, 4);
+        return payload.getInt();
+    }
+
+    /**
+     * decodes a media chunk
+     * @param frame a frame made by {@link #encodeMediaChunk(String, byte[], int)}
+     * @return the chunk
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static MediaChunk decodeMediaChunk(Frame frame) throws ProtocolException {
+        ByteBuffer payload = frame.getPayload();
+        String hash = readString(payload);
+        need(payload, 8);
+        int fileLength = payload.getInt();
+        int index = payload.getInt();
+        return new MediaChunk(hash, fileLength, index, payload.slice());
+    }
+
+    /**
+     * decodes a question payload
+     * @param frame a frame made by {@link #encodeQuestion(int, QuestionData)}
+     * @return the question
+     * @throws ProtocolException if the payload is malformed
+     */
+    public static QuestionData decodeQuestion(Frame frame) throws ProtocolException {
+        ByteBuffer payload = frame.getPayload();
+        need(payload, 5);
+        payload.getInt(); // the round id, see decodeRoundId
+        int typeIndex = payload.get();
+        if (typeIndex < 0 || typeIndex >= QUESTION_TYPES.length) {
+            throw new ProtocolException("Unknown question type " + typeIndex);
+        }
+        QuestionType type = QUESTION_TYPES[typeIndex];
+        String description = readString(payload);
+        String prompt = readString(payload);
+        need(payload, 1);
+        String[] choices = new String[payload.get() & 0xFF];
+        for (int i = 0; i < choices.length; i++) {
+            choices[i] = readString(payload);
+        }
+        need(payload, 1);
+        int blanksNum = payload.get() & 0xFF;
+        String fileName = readString(payload);
+        String mediaHash = readString(payload);
+        return new QuestionData(type, description, prompt, choices, null, blanksNum, fileName, mediaHash);
+    }
+
+    /**
+     * writes a string field
+     * @param out where to write
+     * @param text the string
+     * @throws IOException if the write fails
+     */
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = utf8(text);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * checks that a payload still has enough bytes for the next field, payloads come off the wire so nothing in
+     * them can be trusted
+     * @param buffer the payload
+     * @param bytes how many bytes the next field needs
+     * @throws ProtocolException if there are not that many left
+     */
+    private static void need(ByteBuffer buffer, int bytes) throws ProtocolException {
+        if (buffer.remaining() < bytes) {
+            throw new ProtocolException("Malformed frame, wanted " + bytes + " more byte(s) but only " + buffer.remaining() + " are left");
+        }
+    }
+
+    /**
+     * reads a string field
+     * @param buffer where to read from
+     * @return the string
+     * @throws ProtocolException if the field runs past the end of the payload
+     */
+    private static String readString(ByteBuffer buffer) throws ProtocolException {
+        need(buffer, 2);
+        int length = buffer.getShort() & 0xFFFF;
+        need(buffer, length);
+        String text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return text;
+    }
+
+    /**
+     * moves past a string field without decoding it
+     * @param buffer where to read from
+     * @throws ProtocolException if the field runs past the end of the payload
+     */
+    private static void skipString(ByteBuffer buffer) throws ProtocolException {
+        need(buffer, 2);
+        int length = buffer.getShort() & 0xFFFF;
+        need(buffer, length);
+        buffer.position(buffer.position() + length);
+    }
+
+    /**
+     * encodes a string as UTF-8, checking it fits in a string field
+     * @param text the string
+     * @return the bytes
+     */
+    private static byte[] utf8(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("String too long to send: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+}
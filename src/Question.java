@@ -1,8 +1,10 @@
 import javax.swing.*;
 import java.awt.*;
+import java.net.URL;
 
 /**
  * An abstract class which contains all common fields and methods of different question types
+ * A question view can be bound to new question data with {@link #bind(QuestionData)}, reusing its components
  * @author India Berry
  */
 public abstract class Question extends JPanel {
@@ -11,11 +13,6 @@ public abstract class Question extends JPanel {
      */
     private String questionDescription;
 
-    /**
-     * {double} contains score for question object
-     */
-    private double score;
-
     /**
      * {String} contains user instructions for the question (how to answer)
      */
@@ -41,6 +38,21 @@ public abstract class Question extends JPanel {
      */
     private final JPanel media = new JPanel();
 
+    /**
+     * {JTextField} shows the question description
+     */
+    private final JTextField questionName = new JTextField();
+
+    /**
+     * {JTextField} shows the question prompt
+     */
+    private final JTextField questionInstructions = new JTextField();
+
+    /**
+     * {JLabel} shows the media image, only in the media panel while the question has one
+     */
+    private final JLabel imageLabel = new JLabel();
+
     /**
      * stores the file name if there is media attached to the question
      */
@@ -60,13 +72,9 @@ public abstract class Question extends JPanel {
         questionOptions.setLayout(new FlowLayout());
         media.setLayout(new FlowLayout());
 
-        JTextField questionName = new JTextField(getQuestionDescription());
-        questionName.setText(questionDescription);
         questionName.setEditable(false);
-
-        JTextField questionInstructions = new JTextField(getQuestionPrompt());
-        questionInstructions.setText(questionPrompt);
         questionInstructions.setEditable(false);
+        imageLabel.setOpaque(true);
 
         questionInitial.add(questionInstructions, BorderLayout.NORTH);
         questionInitial.add(questionName, BorderLayout.CENTER);
@@ -84,6 +92,7 @@ public abstract class Question extends JPanel {
      */
     public void setQuestionDescription(String questionDescription) {
         this.questionDescription = questionDescription;
+        questionName.setText(questionDescription);
     }
 
 
@@ -101,6 +110,7 @@ public abstract class Question extends JPanel {
      */
     public void setQuestionPrompt(String questionPrompt){
         this.questionPrompt = questionPrompt;
+        questionInstructions.setText(questionPrompt);
     }
 
 
@@ -127,49 +137,88 @@ public abstract class Question extends JPanel {
         questionOptions.add(component);
     }
 
+    /**
+     * Removes every component from the questionOptions JPanel, so they can be added again in a new order
+     */
+    public void clearQuestionOptions(){
+        questionOptions.removeAll();
+    }
+
     /**
      * Add a file (image) to the media panel
      * @param filePath {String}
      */
     public void addToMedia(String filePath) {
-        Icon image = new ImageIcon(getClass().getResource( filePath));
-        JLabel ImageLabel = new JLabel(image);
-        ImageLabel.setMaximumSize(media.getSize()); // meant to scale image, may not work
-        ImageLabel.setOpaque(true);
-        media.add(ImageLabel);
-        mainPanel.repaint();
-        mainPanel.revalidate();
         fileName = filePath;
+        URL location = getClass().getResource(filePath);
+        if (location != null) { // clients without the file fetch it from the server instead
+            addImage(new ImageIcon(location));
+        }
     }
 
     /**
-     * Setter for score
-     * @param score {double}
+     * Add an image fetched from the server to the media panel
+     * @param image {byte[]} the bytes of the image file
      */
-    public void setScore(double score){
-        this.score = score;
+    public void addToMedia(byte[] image) {
+        addImage(new ImageIcon(image));
     }
 
     /**
-     * getter for fileName
-     * @return {String}
+     * Shows an image in the media panel
+     * @param image {Icon}
      */
-    public String getFileName() {
-        return fileName;
+    private void addImage(Icon image) {
+        imageLabel.setIcon(image);
+        imageLabel.setMaximumSize(media.getSize()); // meant to scale image, may not work
+        if (imageLabel.getParent() != media) {
+            media.add(imageLabel);
+        }
+        mainPanel.repaint();
+        mainPanel.revalidate();
+    }
+
+    /**
+     * Shows a new question in this view, reusing its components instead of building new ones
+     * the question must be of the same type as this view, and anything the user typed or picked is cleared
+     * media with a hash is left for the client to fetch and add, see {@link MediaCache}
+     * @param data {QuestionData} the question to show
+     */
+    public void bind(QuestionData data){
+        setQuestionDescription(data.getQuestionDescription());
+        setQuestionPrompt(data.getQuestionPrompt());
+        imageLabel.setIcon(null);
+        media.remove(imageLabel);
+        fileName = "";
+        bindOptions(data);
+        if (!data.getFileName().equals("") && data.getMediaHash().equals("")) {
+            addToMedia(data.getFileName());
+        } else {
+            fileName = data.getFileName();
+        }
+        mainPanel.revalidate();
+        mainPanel.repaint();
     }
 
     /**
-     * Getter for score
-     * @return {double}
+     * Abstract method bindOptions shows the choices or blanks of a new question in the components of this view
+     * @param data {QuestionData} the question to show, of this view's type
+     */
+    protected abstract void bindOptions(QuestionData data);
+
+    /**
+     * getter for fileName
+     * @return {String}
      */
-    public double getScore(){
-        return score;
+    public String getFileName() {
+        return fileName;
     }
 
     /**
-     * Abstract method calculateScore determines the score on the correctness of the user input or actions
+     * Abstract method getResponse gives what the user has entered or selected, for the server to score
+     * @return {String[]} one string for short answer and multiple choice, one per blank for fill in the blank
      */
-    public abstract void calculateScore();
+    public abstract String[] getResponse();
 
     /**
      * Abstract method toString(), implemented by simpleQuestion, MultipleChoiceQuestion, and FillBlankQuestion.
@@ -0,0 +1,315 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * reads a question bank file one line at a time, so files far bigger than the heap can be loaded
+ * every line is checked before it is kept, bad lines are reported and skipped rather than stopping the load
+ *
+ * the file is UTF-8 text, gzipped if its name ends in .gz, with one question per line and tab separated fields:
+ * <pre>
+ * SHORT_ANSWER     media  question  answer
+ * MULTIPLE_CHOICE  media  question  answer  choice  choice ...
+ * FILL_BLANK       media  question  answer for blank 1  answer for blank 2 ...
+ * </pre>
+ * media is the name of a file in Resources, or empty for none. typed answers may list aliases separated by
+ * {@link AnswerMatcher#ALIAS_SEPARATOR}, a multiple choice answer must be one of its choices, and a fill in the blank
+ * question has one {@link QuestionData#BLANK} in the question for each answer. blank lines and lines starting with # are skipped
+ */
+public class QuestionBankLoader {
+
+    /**
+     * the longest field accepted, short enough that any field fits in a protocol string however it encodes
+     */
+    static final int MAX_FIELD_LENGTH = 1000;
+
+    /**
+     * the most choices or blanks a question can have, the protocol sends the count as a byte
+     */
+    static final int MAX_PARTS = 16;
+
+    /**
+     * the question bank that comes with the server, Resources/questions.tsv, found on the classpath
+     */
+    static final String DEFAULT_BANK = "questions.tsv";
+
+    /**
+     * how many bad lines are reported one by one before the rest are only counted
+     */
+    private static final int MAX_WARNINGS = 20;
+
+    /**
+     * where warnings and the load report go
+     */
+    private final ServerEventSink events;
+
+    /**
+     * the questions kept so far, grown as needed and trimmed at the end
+     */
+    private QuestionData[] questions = new QuestionData[1024];
+
+    /**
+     * how many questions have been kept
+     */
+    private int size;
+
+    /**
+     * how many questions of each type have been kept, by {@link QuestionType} ordinal
+     */
+    private final int[] typeCounts = new int[QuestionType.values().length];
+
+    /**
+     * how many lines were skipped because they were not valid
+     */
+    private int skipped;
+
+    /**
+     * one copy of each choice, answer and file name, so the many questions that share them share one string
+     * only used while loading
+     */
+    private final HashMap<String, String> pool = new HashMap<>();
+
+    /**
+     * constructor for a loader, each loader reads one file
+     * @param events where to report bad lines and the load summary
+     */
+    public QuestionBankLoader(ServerEventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * loads a question bank
+     * @param file the file to read
+     * @return the bank, ready to be shared by every game
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file has no valid questions
+     */
+    public DataSet load(Path file) throws IOException {
+        return load(file.getFileName().toString(), open(file));
+    }
+
+    /**
+     * loads the question bank that comes with the server
+     * @return the bank, ready to be shared by every game
+     * @throws IOException if the bank is not on the classpath or can not be read
+     * @throws IllegalArgumentException if the bank has no valid questions
+     */
+    public DataSet loadDefault() throws IOException {
+        InputStream in = QuestionBankLoader.class.getResourceAsStream("/" + DEFAULT_BANK);
+        if (in == null) {
+            throw new IOException(DEFAULT_BANK + " is not on the classpath, add the Resources folder to it");
+        }
+        return load(DEFAULT_BANK, new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16));
+    }
+
+    /**
+     * loads a question bank from a reader, closing it once done
+     * @param name the name of the bank, for reports
+     * @param opened the reader over the bank's text
+     * @return the bank, ready to be shared by every game
+     * @throws IOException if the bank can not be read
+     * @throws IllegalArgumentException if the bank has no valid questions
+     */
+    private DataSet load(String name, BufferedReader opened) throws IOException {
+        long start = System.nanoTime();
+
+        int lineNumber = 0;
+        try (BufferedReader reader = opened) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    add(parse(line));
+                } catch (IllegalArgumentException e) {
+                    if (++skipped <= MAX_WARNINGS) {
+                        events.displayMessage(name + " line " + lineNumber + " skipped: " + e.getMessage() + "\n");
+                    }
+                }
+            }
+        }
+        if (size == 0) {
+            throw new IllegalArgumentException(name + " has no valid questions");
+        }
+        DataSet bank = new DataSet(Arrays.copyOf(questions, size));
+        questions = null;
+        pool.clear();
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        events.displayMessage(String.format("Loaded %d questions (%d short answer, %d multiple choice, %d fill in the blank) "
+                        + "from %s in %d ms, %d lines skipped\n",
+                size, typeCounts[QuestionType.SHORT_ANSWER.ordinal()], typeCounts[QuestionType.MULTIPLE_CHOICE.ordinal()],
+                typeCounts[QuestionType.FILL_BLANK.ordinal()], name, millis, skipped));
+        return bank;
+    }
+
+    /**
+     * opens a file for reading, unzipping it on the fly if it is gzipped
+     * @param file the file
+     * @return a reader over its text
+     * @throws IOException if the file can not be opened
+     */
+    private static BufferedReader open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            if (file.getFileName().toString().endsWith(".gz")) {
+                in = new GZIPInputStream(in, 1 << 16);
+            }
+            return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * keeps a question, growing the array if it is full
+     * @param question the question
+     */
+    private void add(QuestionData question) {
+        if (size == questions.length) {
+            questions = Arrays.copyOf(questions, size * 2);
+        }
+        questions[size++] = question;
+        typeCounts[question.getType().ordinal()]++;
+    }
+
+    /**
+     * parses and checks one line
+     * @param line the line
+     * @return the question on it
+     * @throws IllegalArgumentException if the line is not a valid question
+     */
+    QuestionData parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("expected type, media, question and answer separated by tabs");
+        }
+        QuestionType type;
+        try {
+            type = QuestionType.valueOf(fields[0].trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown question type " + fields[0]);
+        }
+        String fileName = intern(fields[1].trim());
+        if (fileName.indexOf('/') >= 0 || fileName.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("media must be a file name in Resources, not a path");
+        }
+        String description = checkField(fields[2].trim(), "question");
+
+        switch (type) {
+            case MULTIPLE_CHOICE: {
+                String answer = intern(checkField(fields[3].trim(), "answer"));
+                String[] choices = parts(fields, 4, "choice");
+                if (choices.length < 2) {
+                    throw new IllegalArgumentException("a multiple choice question needs at least 2 choices");
+                }
+                if (!Arrays.asList(choices).contains(answer)) {
+                    throw new IllegalArgumentException("the answer " + answer + " is not one of the choices");
+                }
+                return QuestionData.multipleChoice(description, choices, answer, fileName);
+            }
+            case FILL_BLANK: {
+                String[] answers = parts(fields, 3, "answer");
+                for (String answer : answers) {
+                    checkTyped(answer);
+                }
+                int blanks = countBlanks(description);
+                if (blanks != answers.length) {
+                    throw new IllegalArgumentException("the question has " + blanks + " blanks but "
+                            + answers.length + " answers");
+                }
+                return QuestionData.fillBlank(description, answers, fileName);
+            }
+            default: {
+                if (fields.length > 4) {
+                    throw new IllegalArgumentException("a short answer question has one answer");
+                }
+                String answer = intern(checkTyped(checkField(fields[3].trim(), "answer")));
+                return QuestionData.shortAnswer(description, answer, fileName);
+            }
+        }
+    }
+
+    /**
+     * takes the fields from some index to the end of the line, such as the choices of a question
+     * @param fields every field on the line
+     * @param from the first one to take
+     * @param name what the fields are, for error messages
+     * @return the fields, trimmed and pooled
+     */
+    private String[] parts(String[] fields, int from, String name) {
+        int count = fields.length - from;
+        if (count > MAX_PARTS) {
+            throw new IllegalArgumentException("more than " + MAX_PARTS + " " + name + "s");
+        }
+        String[] parts = new String[count];
+        for (int i = 0; i < count; i++) {
+            parts[i] = intern(checkField(fields[from + i].trim(), name));
+        }
+        return parts;
+    }
+
+    /**
+     * checks that a field is not empty or too long
+     * @param field the trimmed field
+     * @param name what the field is, for error messages
+     * @return the field
+     */
+    private String checkField(String field, String name) {
+        if (field.isEmpty()) {
+            throw new IllegalArgumentException("empty " + name);
+        }
+        if (field.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(name + " longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+        return field;
+    }
+
+    /**
+     * checks that every alias of a typed answer has something left to match once it is normalized
+     * @param answer the answer, with any aliases
+     * @return the answer
+     */
+    private static String checkTyped(String answer) {
+        for (String alias : answer.split("\\|")) {
+            if (AnswerMatcher.normalize(alias).isEmpty()) {
+                throw new IllegalArgumentException("the answer " + answer + " has no letters or digits to match");
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * counts the blanks in a question
+     * @param description the question
+     * @return how many times {@link QuestionData#BLANK} appears
+     */
+    private static int countBlanks(String description) {
+        int count = 0;
+        String blank = QuestionData.BLANK;
+        for (int i = description.indexOf(blank); i >= 0; i = description.indexOf(blank, i + blank.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * gives the shared copy of a string
+     * @param text the string
+     * @return the first equal string seen in this file
+     */
+    private String intern(String text) {
+        String shared = pool.putIfAbsent(text, text);
+        return shared == null ? text : shared;
+    }
+}
@@ -0,0 +1,270 @@
+import java.util.Arrays;
+
+/**
+ * the plain data of a question, with no Swing components, so it is cheap to keep and to send over the network
+ * instances never change after they are made
+ */
+public final class QuestionData {
+
+    /**
+     * an empty array shared by questions that have no choices or answers
+     */
+    private static final String[] NONE = new String[0];
+
+    /**
+     * marks a blank in a fill in the blank question, 5 underscores
+     */
+    public static final String BLANK = "_____";
+
+    /**
+     * {QuestionType} the kind of question
+     */
+    private final QuestionType type;
+
+    /**
+     * {String} the question itself
+     */
+    private final String questionDescription;
+
+    /**
+     * {String} instructions for how to answer the question
+     */
+    private final String questionPrompt;
+
+    /**
+     * {String[]} the options for a multiple choice question, empty for other types
+     */
+    private final String[] choices;
+
+    /**
+     * {String[]} the correct answers, one for short answer and multiple choice and one per blank for fill in the blank
+     * typed answers may list accepted aliases separated by {@link AnswerMatcher#ALIAS_SEPARATOR}
+     */
+    private final String[] answers;
+
+    /**
+     * {int} the number of blanks, only used by fill in the blank questions
+     */
+    private final int blanksNum;
+
+    /**
+     * {String} the name of the media file attached to the question, empty if there is none
+     */
+    private final String fileName;
+
+    /**
+     * {String} the content hash of the media file, set by the server when it has the file, empty otherwise
+     * clients fetch the file by this hash, see {@link MediaStore}
+     */
+    private final String mediaHash;
+
+    /**
+     * constructor for question data
+     * @param type {QuestionType} the kind of question
+     * @param questionDescription {String} the question itself
+     * @param questionPrompt {String} instructions for how to answer
+     * @param choices {String[]} the options for a multiple choice question, may be null
+     * @param answers {String[]} the correct answers, may be null
+     * @param blanksNum {int} the number of blanks for a fill in the blank question
+     * @param fileName {String} the attached media file, may be null
+     */
+    public QuestionData(QuestionType type, String questionDescription, String questionPrompt, String[] choices,
+                        String[] answers, int blanksNum, String fileName) {
+        this(type, questionDescription, questionPrompt, choices, answers, blanksNum, fileName, null);
+    }
+
+    /**
+     * constructor for question data with the hash of its media file
+     * @param type {QuestionType} the kind of question
+     * @param questionDescription {String} the question itself
+     * @param questionPrompt {String} instructions for how to answer
+     * @param choices {String[]} the options for a multiple choice question, may be null
+     * @param answers {String[]} the correct answers, may be null
+     * @param blanksNum {int} the number of blanks for a fill in the blank question
+     * @param fileName {String} the attached media file, may be null
+     * @param mediaHash {String} the content hash of the media file, may be null
+     */
+    public QuestionData(QuestionType type, String questionDescription, String questionPrompt, String[] choices,
+                        String[] answers, int blanksNum, String fileName, String mediaHash) {
+        if (type == null || questionDescription == null || questionPrompt == null) {
+            throw new IllegalArgumentException("type, description and prompt are required");
+        }
+        this.type = type;
+        this.questionDescription = questionDescription;
+        this.questionPrompt = questionPrompt;
+        this.choices = choices == null || choices.length == 0 ? NONE : choices.clone();
+        this.answers = answers == null || answers.length == 0 ? NONE : answers.clone();
+        this.blanksNum = blanksNum;
+        this.fileName = fileName == null ? "" : fileName;
+        this.mediaHash = mediaHash == null ? "" : mediaHash;
+    }
+
+    /**
+     * makes a short answer question
+     * @param questionDescription {String} the question itself
+     * @param correctAnswer {String} the correct answer, with any aliases
+     * @param fileName {String} the attached media file, may be null
+     * @return {QuestionData}
+     */
+    public static QuestionData shortAnswer(String questionDescription, String correctAnswer, String fileName) {
+        return new QuestionData(QuestionType.SHORT_ANSWER, questionDescription, QuestionType.SHORT_ANSWER.getPrompt(),
+                null, new String[]{correctAnswer}, 0, fileName);
+    }
+
+    /**
+     * makes a multiple choice question
+     * @param questionDescription {String} the question itself
+     * @param choices {String[]} the options
+     * @param correctChoice {String} the option that is correct
+     * @param fileName {String} the attached media file, may be null
+     * @return {QuestionData}
+     */
+    public static QuestionData multipleChoice(String questionDescription, String[] choices, String correctChoice,
+                                              String fileName) {
+        return new QuestionData(QuestionType.MULTIPLE_CHOICE, questionDescription, QuestionType.MULTIPLE_CHOICE.getPrompt(),
+                choices, new String[]{correctChoice}, 0, fileName);
+    }
+
+    /**
+     * makes a fill in the blank question with one blank for each answer
+     * @param questionDescription {String} the question, with a {@link #BLANK} for each answer
+     * @param correctChoices {String[]} the correct answer for each blank, with any aliases
+     * @param fileName {String} the attached media file, may be null
+     * @return {QuestionData}
+     */
+    public static QuestionData fillBlank(String questionDescription, String[] correctChoices, String fileName) {
+        return new QuestionData(QuestionType.FILL_BLANK, questionDescription, QuestionType.FILL_BLANK.getPrompt(),
+                null, correctChoices, correctChoices.length, fileName);
+    }
+
+    /**
+     * Getter for the question type
+     * @return {QuestionType}
+     */
+    public QuestionType getType() {
+        return type;
+    }
+
+    /**
+     * Getter for question description
+     * @return {String}
+     */
+    public String getQuestionDescription() {
+        return questionDescription;
+    }
+
+    /**
+     * Getter for question prompt
+     * @return {String}
+     */
+    public String getQuestionPrompt() {
+        return questionPrompt;
+    }
+
+    /**
+     * Getter for the number of choices
+     * @return {int}
+     */
+    public int getChoiceCount() {
+        return choices.length;
+    }
+
+    /**
+     * Getter for one of the choices
+     * @param index {int} which choice
+     * @return {String}
+     */
+    public String getChoice(int index) {
+        return choices[index];
+    }
+
+    /**
+     * Getter for a copy of the choices
+     * @return {String[]}
+     */
+    public String[] getChoices() {
+        return choices.clone();
+    }
+
+    /**
+     * Getter for the number of correct answers
+     * @return {int}
+     */
+    public int getAnswerCount() {
+        return answers.length;
+    }
+
+    /**
+     * Getter for one of the correct answers
+     * @param index {int} which answer
+     * @return {String}
+     */
+    public String getAnswer(int index) {
+        return answers[index];
+    }
+
+    /**
+     * Getter for a copy of the correct answers
+     * @return {String[]}
+     */
+    public String[] getAnswers() {
+        return answers.clone();
+    }
+
+    /**
+     * Getter for the number of blanks
+     * @return {int}
+     */
+    public int getBlanksNum() {
+        return blanksNum;
+    }
+
+    /**
+     * Getter for the media file name
+     * @return {String} the file name, empty if there is no media
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Getter for the content hash of the media file
+     * @return {String} the hash, empty if the media has not been found or there is none
+     */
+    public String getMediaHash() {
+        return mediaHash;
+    }
+
+    /**
+     * makes a copy of this question that names the content hash of its media file
+     * @param hash {String} the hash
+     * @return {QuestionData} the copy, sharing everything else with this question
+     */
+    public QuestionData withMediaHash(String hash) {
+        return new QuestionData(this, hash);
+    }
+
+    /**
+     * copy constructor that only changes the media hash, the arrays never change so they are shared
+     * @param question {QuestionData} the question to copy
+     * @param mediaHash {String} the new hash
+     */
+    private QuestionData(QuestionData question, String mediaHash) {
+        this.type = question.type;
+        this.questionDescription = question.questionDescription;
+        this.questionPrompt = question.questionPrompt;
+        this.choices = question.choices;
+        this.answers = question.answers;
+        this.blanksNum = question.blanksNum;
+        this.fileName = question.fileName;
+        this.mediaHash = mediaHash;
+    }
+
+    /**
+     * @return {String} the type and description of the question
+     */
+    @Override
+    public String toString() {
+        return type + ": " + questionDescription + (choices.length == 0 ? "" : " " + Arrays.toString(choices));
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * the different kinds of questions the game can ask
+ */
+public enum QuestionType {
+    /**
+     * answered by typing a short answer, see {@link ShortAnswerQuestion}
+     */
+    SHORT_ANSWER("Please answer the following question."),
+
+    /**
+     * answered by picking one of the choices, see {@link MultipleChoiceQuestion}
+     */
+    MULTIPLE_CHOICE("Please select one from the following choices."),
+
+    /**
+     * answered by filling in each blank, see {@link FillBlankQuestion}
+     */
+    FILL_BLANK("Please fill in the blanks in the following question.");
+
+    /**
+     * {String} the instructions shown with every question of this kind
+     */
+    private final String prompt;
+
+    /**
+     * constructor for a question type
+     * @param prompt {String} the instructions shown with every question of this kind
+     */
+    QuestionType(String prompt) {
+        this.prompt = prompt;
+    }
+
+    /**
+     * Getter for the prompt, shared by every question of this kind
+     * @return {String}
+     */
+    public String getPrompt() {
+        return prompt;
+    }
+}
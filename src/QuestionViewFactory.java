@@ -0,0 +1,41 @@
+import java.util.EnumMap;
+
+/**
+ * gives the client the Swing view to show a question in, only ever used by the client, when a question is about to be shown
+ * the server keeps questions as {@link QuestionData} and never builds a view, so it needs no Swing at all
+ * keeps one view for each type of question and binds it to each new question of that type,
+ * so after the first question of a type no components are built however long the session runs
+ */
+public class QuestionViewFactory {
+
+    /**
+     * the view for each type of question, made the first time a question of that type arrives
+     */
+    private final EnumMap<QuestionType, Question> views = new EnumMap<>(QuestionType.class);
+
+    /**
+     * gives the view for a question, showing the question in it
+     * questions sent to clients have no correct answers, those are left empty
+     * @param data {QuestionData} the question to show
+     * @return {Question} the view for the question's type, the same one every time for a type
+     */
+    public Question viewFor(QuestionData data){
+        Question view = views.get(data.getType());
+        if (view == null) {
+            switch (data.getType()) {
+                case MULTIPLE_CHOICE:
+                    view = new MultipleChoiceQuestion("", new String[0], "");
+                    break;
+                case FILL_BLANK:
+                    view = new FillBlankQuestion("", 0, new String[0]);
+                    break;
+                default:
+                    view = new ShortAnswerQuestion("", "");
+                    break;
+            }
+            views.put(data.getType(), view);
+        }
+        view.bind(data);
+        return view;
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * counts events per second over the last few seconds, for rates like connections accepted per second
+ * events land in a ring of one second buckets, a bucket is claimed for its new second by whoever gets there first
+ * marking an event never locks or allocates, at the moment a bucket is reused an event racing the reset can be lost,
+ * which a rate shown to people can live with
+ */
+public class RateMeter {
+
+    /**
+     * how many whole seconds the rate is taken over
+     */
+    private static final int WINDOW_SECONDS = 10;
+
+    /**
+     * one more bucket than the window, so the second still filling is never part of the rate
+     */
+    private static final int BUCKETS = WINDOW_SECONDS + 1;
+
+    /**
+     * the events counted in each bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * the second each bucket is counting
+     */
+    private final AtomicLongArray seconds = new AtomicLongArray(BUCKETS);
+
+    /**
+     * constructor for a rate meter
+     */
+    public RateMeter() {
+        for (int i = 0; i < BUCKETS; i++) {
+            seconds.set(i, Long.MIN_VALUE); // no bucket has counted anything yet
+        }
+    }
+
+    /**
+     * counts one event
+     */
+    public void mark() {
+        long now = currentSecond();
+        int bucket = (int) Math.floorMod(now, (long) BUCKETS);
+        long counting = seconds.get(bucket);
+        if (counting != now && seconds.compareAndSet(bucket, counting, now)) { // first event of a new second
+            counts.set(bucket, 0);
+        }
+        counts.incrementAndGet(bucket);
+    }
+
+    /**
+     * the average rate over the last whole seconds
+     * @return events per second
+     */
+    public double getRate() {
+        long now = currentSecond();
+        long events = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long second = seconds.get(i);
+            if (second < now && second >= now - WINDOW_SECONDS) {
+                events += counts.get(i);
+            }
+        }
+        return (double) events / WINDOW_SECONDS;
+    }
+
+    /**
+     * the second the monotonic clock is in
+     * @return whole seconds
+     */
+    private static long currentSecond() {
+        return System.nanoTime() / 1_000_000_000L;
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * counts down the players still to answer one round
+ * every player arrives at most once (see {@link Player#markAnswered(int)}), so an answer costs one atomic decrement
+ * exactly one caller ever sees the round complete, that caller moves the game on
+ */
+public class RoundBarrier {
+
+    /**
+     * the round this barrier is for
+     */
+    private final int roundId;
+
+    /**
+     * how many players have still to answer
+     */
+    private final AtomicInteger remaining;
+
+    /**
+     * scores answers to this round's question
+     */
+    private final AnswerScorer scorer;
+
+    /**
+     * when the round began, from {@link System#nanoTime()}
+     */
+    private final long startedAt = System.nanoTime();
+
+    /**
+     * constructor for a round barrier
+     * @param roundId the round this barrier is for
+     * @param players how many players are in the round
+     * @param scorer scores answers to this round's question
+     */
+    public RoundBarrier(int roundId, int players, AnswerScorer scorer) {
+        this.roundId = roundId;
+        this.remaining = new AtomicInteger(players);
+        this.scorer = scorer;
+    }
+
+    /**
+     * getter for the scorer of this round's question, kept with the round so a late answer is never scored against the next question
+     * @return the scorer
+     */
+    public AnswerScorer getScorer() {
+        return scorer;
+    }
+
+    /**
+     * getter for when the round began
+     * @return the time from {@link System#nanoTime()}
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * getter for the round this barrier is for
+     * @return the round id
+     */
+    public int getRoundId() {
+        return roundId;
+    }
+
+    /**
+     * getter for how many players have still to answer
+     * @return the number of players left, 0 once the round is complete
+     */
+    public int getRemaining() {
+        return remaining.get();
+    }
+
+    /**
+     * records one player answering or leaving
+     * @return true for exactly one caller, the one that completed the round
+     */
+    public boolean arrive() {
+        return claim() == 0;
+    }
+
+    /**
+     * counts one player if the round is still open, checking and counting in one atomic step so an answer can
+     * never be counted once the round has timed out
+     * @return how many players the round still waits on, 0 if this call completed it, -1 if it had already
+     * completed and this player was not counted
+     */
+    public int claim() {
+        while (true) {
+            int left = remaining.get();
+            if (left <= 0) {
+                return -1;
+            }
+            if (remaining.compareAndSet(left, left - 1)) {
+                return left - 1;
+            }
+        }
+    }
+
+    /**
+     * waits on one more player, for a player who resumed their session before the round completed
+     * @return true if the round will wait for them, false if it has already completed
+     */
+    public boolean rejoin() {
+        while (true) {
+            int left = remaining.get();
+            if (left <= 0) {
+                return false;
+            }
+            if (remaining.compareAndSet(left, left + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * completes the round without waiting for anyone else
+     * @return true if this call completed the round, false if it was already complete
+     */
+    public boolean forceComplete() {
+        while (true) {
+            int left = remaining.get();
+            if (left <= 0) {
+                return false;
+            }
+            if (remaining.compareAndSet(left, 0)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * receives the messages the server reports while it runs, so the game can run with or without a window
+ */
+public interface ServerEventSink {
+
+    /**
+     * reports a message from the server
+     * @param message the message to report
+     */
+    void displayMessage(String message);
+}
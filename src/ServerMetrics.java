@@ -0,0 +1,279 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the numbers the server keeps about itself, shown over JMX as {@value #OBJECT_NAME}
+ * counters are {@link LongAdder}s and durations go in {@link LatencyHistogram}s, so recording from the
+ * I/O threads and rooms never locks or allocates
+ * gauges like the outbound queue depth are worked out from the connected players when they are read
+ */
+public class ServerMetrics implements ServerMetricsMBean {
+
+    /**
+     * the name the metrics are registered under
+     */
+    public static final String OBJECT_NAME = "TriviaServer:type=ServerMetrics";
+
+    /**
+     * every connected player, read for the gauges
+     */
+    private final PlayerRegistry players;
+
+    /**
+     * connections accepted since the server started
+     */
+    private final LongAdder connectionsAccepted = new LongAdder();
+
+    /**
+     * connections accepted per second
+     */
+    private final RateMeter acceptRate = new RateMeter();
+
+    /**
+     * bytes read from players
+     */
+    private final LongAdder bytesIn = new LongAdder();
+
+    /**
+     * bytes written to players
+     */
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * games started and not yet over
+     */
+    private final LongAdder gamesInProgress = new LongAdder();
+
+    /**
+     * rounds that ran out of time before every player answered
+     */
+    private final LongAdder roundsTimedOut = new LongAdder();
+
+    /**
+     * how long each round took, from the question being sent to the round completing
+     */
+    private final LatencyHistogram roundDuration = new LatencyHistogram();
+
+    /**
+     * how long each answer took, from the question being written to the player's socket to the answer being read
+     */
+    private final LatencyHistogram answerLatency = new LatencyHistogram();
+
+    /**
+     * constructor for the metrics of a server
+     * @param players every connected player
+     */
+    public ServerMetrics(PlayerRegistry players) {
+        this.players = players;
+    }
+
+    /**
+     * shows these metrics over JMX, once per JVM
+     * @throws JMException if they can not be registered, for example if another server in this JVM already has
+     */
+    public void register() throws JMException {
+        MBeanServer platform = ManagementFactory.getPlatformMBeanServer();
+        platform.registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * counts a connection being accepted
+     */
+    public void connectionAccepted() {
+        connectionsAccepted.increment();
+        acceptRate.mark();
+    }
+
+    /**
+     * counts bytes read from a player
+     * @param bytes how many
+     */
+    public void bytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    /**
+     * counts bytes written to a player
+     * @param bytes how many
+     */
+    public void bytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * counts a game starting
+     */
+    public void gameStarted() {
+        gamesInProgress.increment();
+    }
+
+    /**
+     * counts a game ending, or being abandoned by all its players
+     */
+    public void gameEnded() {
+        gamesInProgress.decrement();
+    }
+
+    /**
+     * records how long a round took
+     * @param nanos the duration in nanoseconds
+     */
+    public void roundFinished(long nanos) {
+        roundDuration.record(nanos);
+    }
+
+    /**
+     * counts a round that ran out of time
+     */
+    public void roundTimedOut() {
+        roundsTimedOut.increment();
+    }
+
+    /**
+     * records how long an answer took
+     * @param nanos the latency in nanoseconds
+     */
+    public void answerScored(long nanos) {
+        answerLatency.record(nanos);
+    }
+
+    @Override
+    public String describePlayerLatency(long sessionId) {
+        Player player = players.get(sessionId);
+        return player == null ? "No player " + sessionId + " is connected" : player.getAnswerTimes().describe();
+    }
+
+    /**
+     * converts nanoseconds to the milliseconds shown over JMX
+     * @param nanos the duration in nanoseconds
+     * @return the duration in milliseconds
+     */
+    private static double millis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return players.size();
+    }
+
+    @Override
+    public long getConnectionsAccepted() {
+        return connectionsAccepted.sum();
+    }
+
+    @Override
+    public double getAcceptRate() {
+        return acceptRate.getRate();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getOutboundQueueDepth() {
+        long depth = 0;
+        for (Player player : players.snapshot()) {
+            depth += player.getQueueDepth();
+        }
+        return depth;
+    }
+
+    @Override
+    public int getMaxOutboundQueueDepth() {
+        int deepest = 0;
+        for (Player player : players.snapshot()) {
+            deepest = Math.max(deepest, player.getQueueDepth());
+        }
+        return deepest;
+    }
+
+    @Override
+    public long getFramesDropped() {
+        long dropped = 0;
+        for (Player player : players.snapshot()) {
+            dropped += player.getDroppedFrames();
+        }
+        return dropped;
+    }
+
+    @Override
+    public long getGamesInProgress() {
+        return gamesInProgress.sum();
+    }
+
+    @Override
+    public long getRoundsTimedOut() {
+        return roundsTimedOut.sum();
+    }
+
+    @Override
+    public long getRoundCount() {
+        return roundDuration.getCount();
+    }
+
+    @Override
+    public double getRoundDurationMean() {
+        return millis(roundDuration.getMean());
+    }
+
+    @Override
+    public double getRoundDurationP50() {
+        return millis(roundDuration.getPercentile(50));
+    }
+
+    @Override
+    public double getRoundDurationP90() {
+        return millis(roundDuration.getPercentile(90));
+    }
+
+    @Override
+    public double getRoundDurationP99() {
+        return millis(roundDuration.getPercentile(99));
+    }
+
+    @Override
+    public double getRoundDurationMax() {
+        return millis(roundDuration.getMax());
+    }
+
+    @Override
+    public long getAnswerCount() {
+        return answerLatency.getCount();
+    }
+
+    @Override
+    public double getAnswerLatencyMean() {
+        return millis(answerLatency.getMean());
+    }
+
+    @Override
+    public double getAnswerLatencyP50() {
+        return millis(answerLatency.getPercentile(50));
+    }
+
+    @Override
+    public double getAnswerLatencyP90() {
+        return millis(answerLatency.getPercentile(90));
+    }
+
+    @Override
+    public double getAnswerLatencyP99() {
+        return millis(answerLatency.getPercentile(99));
+    }
+
+    @Override
+    public double getAnswerLatencyMax() {
+        return millis(answerLatency.getMax());
+    }
+}
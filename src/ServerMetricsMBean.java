@@ -0,0 +1,146 @@
+/**
+ * what the server shows over JMX, see {@link ServerMetrics}
+ * times are in milliseconds, jconsole or any JMX client can read them while the server runs
+ */
+public interface ServerMetricsMBean {
+
+    /**
+     * getter for how many players are connected
+     * @return the number of players
+     */
+    int getActiveConnections();
+
+    /**
+     * getter for how many connections have been accepted since the server started
+     * @return the number of connections
+     */
+    long getConnectionsAccepted();
+
+    /**
+     * getter for how fast connections are being accepted
+     * @return connections per second over the last few seconds
+     */
+    double getAcceptRate();
+
+    /**
+     * getter for how many bytes players have sent
+     * @return the number of bytes, frame headers included
+     */
+    long getBytesIn();
+
+    /**
+     * getter for how many bytes have been written to players
+     * @return the number of bytes, frame headers included
+     */
+    long getBytesOut();
+
+    /**
+     * getter for how many frames are waiting to be written, over every player
+     * @return the number of frames
+     */
+    long getOutboundQueueDepth();
+
+    /**
+     * getter for the most frames waiting for any one player
+     * @return the number of frames
+     */
+    int getMaxOutboundQueueDepth();
+
+    /**
+     * getter for how many frames to connected players were dropped because their queue was full
+     * @return the number of frames
+     */
+    long getFramesDropped();
+
+    /**
+     * getter for how many games are being played
+     * @return the number of games
+     */
+    long getGamesInProgress();
+
+    /**
+     * getter for how many rounds ran out of time before every player answered
+     * @return the number of rounds
+     */
+    long getRoundsTimedOut();
+
+    /**
+     * getter for how many rounds have finished
+     * @return the number of rounds
+     */
+    long getRoundCount();
+
+    /**
+     * getter for how long rounds take on average
+     * @return the mean round duration
+     */
+    double getRoundDurationMean();
+
+    /**
+     * getter for the median round duration
+     * @return the 50th percentile
+     */
+    double getRoundDurationP50();
+
+    /**
+     * getter for the 90th percentile round duration
+     * @return the 90th percentile
+     */
+    double getRoundDurationP90();
+
+    /**
+     * getter for the 99th percentile round duration
+     * @return the 99th percentile
+     */
+    double getRoundDurationP99();
+
+    /**
+     * getter for the longest round
+     * @return the longest round duration
+     */
+    double getRoundDurationMax();
+
+    /**
+     * getter for how many answers have been scored
+     * @return the number of answers
+     */
+    long getAnswerCount();
+
+    /**
+     * getter for how long players take to answer on average, from the question being written to their socket to
+     * their answer being read off it
+     * @return the mean answer latency
+     */
+    double getAnswerLatencyMean();
+
+    /**
+     * getter for the median answer latency
+     * @return the 50th percentile
+     */
+    double getAnswerLatencyP50();
+
+    /**
+     * getter for the 90th percentile answer latency
+     * @return the 90th percentile
+     */
+    double getAnswerLatencyP90();
+
+    /**
+     * getter for the 99th percentile answer latency
+     * @return the 99th percentile
+     */
+    double getAnswerLatencyP99();
+
+    /**
+     * getter for the slowest answer
+     * @return the longest answer latency
+     */
+    double getAnswerLatencyMax();
+
+    /**
+     * describes how long one player has taken to answer during their current or last game
+     * @param sessionId the player's session id
+     * @return how many answers were timed with their mean, fastest and slowest
+     */
+    String describePlayerLatency(long sessionId);
+}
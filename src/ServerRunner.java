@@ -1,4 +1,10 @@
 import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * class to run the server
@@ -8,11 +14,171 @@ public class ServerRunner {
 
     /**
      * runner for the server
+     * pass --headless to run without a window, this also happens automatically when there is no display
+     * pass --transport=nio to serve every player from a few selector threads instead of a thread each,
+     * and --io-threads=N to choose how many (defaults to one per core)
+     * pass --threads=virtual to run each blocking player on a virtual thread, needs Java 21 or newer
+     * pass --queue-size=N for how many frames may wait for each player (default 256) and
+     * --overflow=drop|coalesce|disconnect for what happens to a player whose queue fills (default disconnect)
+     * pass --questions=FILE to play with a question bank from a file instead of the built in questions,
+     * see {@link QuestionBankLoader} for the format
+     * pass --media=DIR to read question images from a folder instead of the classpath, players fetch them from the server
+     * pass --seed=N to have every game ask the same questions in the same order, to replay a game use the seed
+     * the server printed when it started
+     * pass --round-time=SECONDS for how long players have to answer each question (default 30),
+     * 0 waits for every player however long they take
+     * pass --scoring=speed to make faster right answers worth more, an instant answer keeps all its points and one
+     * at the time limit keeps half, --scoring=flat (the default) scores every right answer the same
+     * pass --resume-time=SECONDS for how long a dropped player keeps their seat and score to reconnect (default 30),
+     * 0 forgets players as soon as they drop
+     * pass --journal=DIR to record every game in a journal in that folder, a server restarted with the same folder
+     * and questions carries on the games that were in progress and their players resume with their scores,
+     * --journal-sync=MS sets how often the journal is forced to disk (default 50)
+     * pass --stats=DIR to keep every named player's lifetime games, right answers, total score and best streak
+     * in that folder, players are sent theirs at the end of each game
+     * connections, traffic, games and round and answer times are shown over JMX as {@value ServerMetrics#OBJECT_NAME},
+     * jconsole can read them from a server on the same machine
      * @param args arguments for the server
      */
     public static void main(String[] args){
-        Server server = new Server();
-        server.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        server.runServer();
+        boolean headless = false;
+        String transportName = "blocking";
+        String threads = "platform";
+        int ioThreads = Runtime.getRuntime().availableProcessors();
+        int queueSize = OutboundQueue.DEFAULT_CAPACITY;
+        OverflowPolicy overflow = OverflowPolicy.DISCONNECT;
+        Path questionFile = null;
+        Long questionSeed = null;
+        Path mediaDirectory = null;
+        int roundSeconds = GameServer.DEFAULT_ROUND_SECONDS;
+        String scoring = "flat";
+        int resumeSeconds = GameServer.DEFAULT_RESUME_SECONDS;
+        Path journalDirectory = null;
+        long journalSyncMillis = GameJournal.DEFAULT_SYNC_MILLIS;
+        Path statsDirectory = null;
+        for (String arg : args) {
+            if (arg.equals("--headless")) {
+                headless = true;
+            } else if (arg.startsWith("--transport=")) {
+                transportName = arg.substring("--transport=".length());
+            } else if (arg.startsWith("--threads=")) {
+                threads = arg.substring("--threads=".length());
+            } else if (arg.startsWith("--queue-size=")) {
+                queueSize = Integer.parseInt(arg.substring("--queue-size=".length()));
+            } else if (arg.startsWith("--overflow=")) {
+                overflow = OverflowPolicy.valueOf(arg.substring("--overflow=".length()).toUpperCase());
+            } else if (arg.startsWith("--questions=")) {
+                questionFile = Paths.get(arg.substring("--questions=".length()));
+            } else if (arg.startsWith("--media=")) {
+                mediaDirectory = Paths.get(arg.substring("--media=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                questionSeed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--scoring=")) {
+                scoring = arg.substring("--scoring=".length());
+            } else if (arg.startsWith("--round-time=")) {
+                roundSeconds = Integer.parseInt(arg.substring("--round-time=".length()));
+            } else if (arg.startsWith("--resume-time=")) {
+                resumeSeconds = Integer.parseInt(arg.substring("--resume-time=".length()));
+            } else if (arg.startsWith("--journal=")) {
+                journalDirectory = Paths.get(arg.substring("--journal=".length()));
+            } else if (arg.startsWith("--journal-sync=")) {
+                journalSyncMillis = Long.parseLong(arg.substring("--journal-sync=".length()));
+            } else if (arg.startsWith("--stats=")) {
+                statsDirectory = Paths.get(arg.substring("--stats=".length()));
+            } else if (arg.startsWith("--io-threads=")) {
+                ioThreads = Integer.parseInt(arg.substring("--io-threads=".length()));
+            } else {
+                System.err.println("Unknown argument " + arg);
+                System.exit(1);
+            }
+        }
+
+        Transport transport;
+        if (!threads.equals("platform") && !threads.equals("virtual")) {
+            System.err.println("Unknown thread mode " + threads + ", use platform or virtual");
+            System.exit(1);
+            return;
+        }
+        if (transportName.equals("nio")) {
+            if (threads.equals("virtual")) {
+                System.err.println("--threads=virtual only applies to the blocking transport");
+                System.exit(1);
+            }
+            transport = new NioTransport(GameServer.PORT, ioThreads, queueSize, overflow);
+        } else if (transportName.equals("blocking")) {
+            if (threads.equals("virtual")) {
+                ExecutorService virtualThreads = BlockingTransport.newVirtualThreadExecutor();
+                if (virtualThreads == null) {
+                    System.err.println("Virtual threads need Java 21 or newer");
+                    System.exit(1);
+                }
+                transport = new BlockingTransport(GameServer.PORT, virtualThreads, queueSize, overflow);
+            } else {
+                transport = new BlockingTransport(GameServer.PORT, Executors.newCachedThreadPool(), queueSize, overflow);
+            }
+        } else {
+            System.err.println("Unknown transport " + transportName + ", use blocking or nio");
+            System.exit(1);
+            return;
+        }
+
+        if (headless) {
+            System.setProperty("java.awt.headless", "true"); // must be set before anything touches AWT
+        }
+
+        GameServer game;
+        if (headless || GraphicsEnvironment.isHeadless()) {
+            game = new GameServer(new ConsoleEventSink(), transport);
+        } else {
+            Server server = new Server(transport);
+            server.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            game = server.getGame();
+        }
+        if (questionFile != null) {
+            try {
+                game.loadQuestions(questionFile);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not load questions from " + questionFile + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        if (mediaDirectory != null) {
+            game.setMediaDirectory(mediaDirectory);
+        }
+        if (questionSeed != null) {
+            game.setQuestionSeed(questionSeed);
+        }
+        if (roundSeconds < 0) {
+            System.err.println("--round-time can not be negative");
+            System.exit(1);
+        }
+        game.setRoundSeconds(roundSeconds);
+        if (!scoring.equals("flat") && !scoring.equals("speed")) {
+            System.err.println("Unknown scoring " + scoring + ", use flat or speed");
+            System.exit(1);
+        }
+        game.setSpeedScoring(scoring.equals("speed"));
+        if (resumeSeconds < 0) {
+            System.err.println("--resume-time can not be negative");
+            System.exit(1);
+        }
+        game.setResumeSeconds(resumeSeconds);
+        if (statsDirectory != null) {
+            try {
+                game.openStats(statsDirectory);
+            } catch (IOException e) {
+                System.err.println("Could not open the player stats in " + statsDirectory + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        if (journalDirectory != null) {
+            try {
+                game.openJournal(journalDirectory, journalSyncMillis);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not open the journal in " + journalDirectory + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        game.runServer();
     }
 }
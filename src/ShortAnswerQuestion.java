@@ -28,15 +28,15 @@ public class ShortAnswerQuestion extends Question{
      * @param questionDescription {String} question being asked
      */
     public ShortAnswerQuestion(String questionDescription, String correctAnswer){
-        super(questionDescription, "Please answer the following question.");
-        setCorrectAnswer(correctAnswer.replaceAll("\\s", "")); // take out spaces
+        super(questionDescription, QuestionType.SHORT_ANSWER.getPrompt());
+        setCorrectAnswer(correctAnswer); // spacing, case and typos are dealt with by the server's AnswerMatcher
 
         shortAnswer = new JTextField(30); // initialize JTextField
 
         ActionListener shortListener = new ActionListener(){ // initialize a new action listener
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                setUserAnswer(shortAnswer.getText().replaceAll("\\s", "")); // set and take out spaces
+                setUserAnswer(shortAnswer.getText());
             }
         };
 
@@ -77,19 +77,24 @@ public class ShortAnswerQuestion extends Question{
     public String getUserAnswer(){return userAnswer;}
 
     /**
-     * If user's input matches the correct answer, the score for the question is 1
+     * Implementation of super bindOptions method, clears the answer field for the new question
+     * @param data {QuestionData}
+     */
+    @Override
+    protected void bindOptions(QuestionData data) {
+        setCorrectAnswer(data.getAnswerCount() == 0 ? "" : data.getAnswer(0));
+        setUserAnswer(null);
+        shortAnswer.setText("");
+    }
+
+    /**
+     * Gives what the user has typed, whether or not they pressed enter
      * Implements super (Question) abstract method
+     * @return {String[]}
      */
     @Override
-    public void calculateScore(){
-        try {
-            if (getUserAnswer().equalsIgnoreCase(getCorrectAnswer())) {
-                setScore(1);
-            }
-        }
-        catch(NullPointerException exception){
-            addToQuestionOptions(new JTextField("Correct answer may have not been initialized"));
-        }
+    public String[] getResponse(){
+        return new String[]{shortAnswer.getText()};
     }
 
     /**
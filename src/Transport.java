@@ -0,0 +1,13 @@
+/**
+ * the part of the server that accepts players and moves frames between them and the game
+ * every new connection is handed to {@link GameServer#connect(Connection)}, every frame read goes to
+ * {@link Player#onFrame(Frame)} and a closed connection is reported with {@link Player#onClose(Connection)}
+ */
+public interface Transport {
+
+    /**
+     * accepts players and moves their frames for as long as the server is up
+     * @param server the game to hand players to
+     */
+    void serve(GameServer server);
+}